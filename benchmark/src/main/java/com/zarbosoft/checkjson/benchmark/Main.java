@@ -0,0 +1,34 @@
+package com.zarbosoft.checkjson.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the benchmarks like JMH's own main, but always with the GC profiler so results include allocation per operation
+ * ({@code gc.alloc.rate.norm}).  Takes the usual JMH arguments.
+ */
+public class Main {
+	public static void main(final String[] args) throws Exception {
+		final CommandLineOptions command = new CommandLineOptions(args);
+		if (command.shouldHelp() ||
+				command.shouldList() ||
+				command.shouldListWithParams() ||
+				command.shouldListProfilers() ||
+				command.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		final OptionsBuilder options = new OptionsBuilder();
+		options.parent(command);
+		boolean profiled = false;
+		for (final ProfilerConfig profiler : command.getProfilers())
+			if (profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName()))
+				profiled = true;
+		if (!profiled)
+			options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
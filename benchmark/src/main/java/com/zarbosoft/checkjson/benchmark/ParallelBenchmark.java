@@ -0,0 +1,89 @@
+package com.zarbosoft.checkjson.benchmark;
+
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.CheckJsonReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Scaling of newline delimited reads with the number of threads.  Compare the threads=N parallel scores to the
+ * sequential score to see how close to linear the speedup is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelBenchmark {
+	@Param({"1000000"})
+	public int records;
+
+	/**
+	 * Separate so the sequential baseline, which doesn't use the pool, is only measured once
+	 */
+	@State(Scope.Benchmark)
+	public static class Pool {
+		@Param({"1", "2", "4", "8"})
+		public int threads;
+
+		private ForkJoinPool pool;
+
+		@Setup
+		public void setup() {
+			pool = new ForkJoinPool(threads);
+		}
+
+		@TearDown
+		public void tearDown() {
+			pool.shutdown();
+		}
+	}
+
+	private final CheckJsonReader<Record> reader = CheckJson.reader(Record.class);
+	private Path file;
+
+	@Setup
+	public void setup() throws IOException {
+		file = Files.createTempFile("checkjson-benchmark", ".ndjson");
+		try (final BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (int i = 0; i < records; ++i) {
+				writer.write(Record.json(i));
+				writer.write('\n');
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.delete(file);
+	}
+
+	@Benchmark
+	public long sequential() throws IOException {
+		try (
+				final InputStream stream = Files.newInputStream(file);
+				final Stream<Record> records = reader.stream(stream)
+		) {
+			return records.count();
+		}
+	}
+
+	@Benchmark
+	public long parallel(final Pool pool) throws Exception {
+		return pool.pool.submit(() -> {
+			try (final Stream<Record> records = reader.readLinesParallel(file)) {
+				return records.count();
+			}
+		}).get();
+	}
+}
@@ -0,0 +1,118 @@
+package com.zarbosoft.checkjson.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.CheckJsonReader;
+import com.zarbosoft.checkjson.ValidationError;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single document reads of each payload shape from a String and an InputStream, with plain Jackson databinding as
+ * the baseline.  The jar's {@link Main} adds the GC profiler, so allocation per operation is reported alongside
+ * throughput:
+ * <p>
+ * {@code java -jar target/benchmarks.jar ReadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+	public enum Shape {
+		FLAT(Shapes.Flat.class) {
+			@Override
+			String json() {
+				return Shapes.flat(12345);
+			}
+		},
+		DEEP(Shapes.Deep.class) {
+			@Override
+			String json() {
+				return Shapes.deep(64);
+			}
+		},
+		NUMBERS(Shapes.Numbers.class) {
+			@Override
+			String json() {
+				return Shapes.numbers(1000);
+			}
+		},
+		STRINGS(Shapes.Strings.class) {
+			@Override
+			String json() {
+				return Shapes.strings(500);
+			}
+		},
+		BINARY(Shapes.Binary.class) {
+			@Override
+			String json() {
+				return Shapes.binary(16 * 1024);
+			}
+		},
+		INVALID(Shapes.Flat.class) {
+			@Override
+			String json() {
+				return Shapes.invalid(12345);
+			}
+		};
+
+		final Class<?> type;
+
+		Shape(final Class<?> type) {
+			this.type = type;
+		}
+
+		abstract String json();
+	}
+
+	@Param
+	public Shape shape;
+
+	private CheckJsonReader<?> reader;
+	private ObjectMapper mapper;
+	private String json;
+	private byte[] bytes;
+
+	@Setup
+	public void setup() {
+		reader = CheckJson.reader(shape.type);
+		mapper = new ObjectMapper();
+		json = shape.json();
+		bytes = json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public Object checkjsonString() throws IOException {
+		try {
+			return reader.read(json);
+		} catch (final ValidationError e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object checkjsonStream() throws IOException {
+		try {
+			return reader.read(new ByteArrayInputStream(bytes));
+		} catch (final ValidationError e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object jacksonString() throws IOException {
+		return mapper.readValue(json, shape.type);
+	}
+
+	@Benchmark
+	public Object jacksonStream() throws IOException {
+		return mapper.readValue(new ByteArrayInputStream(bytes), shape.type);
+	}
+}
@@ -0,0 +1,49 @@
+package com.zarbosoft.checkjson.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zarbosoft.checkjson.Valid;
+
+import java.util.List;
+
+public class Record {
+	@JsonProperty
+	@Valid(pattern = "[a-z0-9]{8}")
+	public String id;
+
+	@JsonProperty
+	@Valid(min = Valid.Limit.INCLUSIVE, minValue = 0)
+	public long timestamp;
+
+	@JsonProperty
+	@Valid(min = Valid.Limit.INCLUSIVE, minValue = 0, max = Valid.Limit.INCLUSIVE, maxValue = 1000)
+	public int count;
+
+	@JsonProperty
+	@Valid
+	public double value;
+
+	@JsonProperty
+	@Valid
+	public boolean enabled;
+
+	@JsonProperty
+	@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 64)
+	public String note;
+
+	@JsonProperty
+	@Valid
+	public List<String> tags;
+
+	public static String json(final int i) {
+		return String.format(
+				"{\"id\":\"%08x\",\"timestamp\":%s,\"count\":%s,\"value\":%s.5,\"enabled\":%s,\"note\":\"note %s\",\"tags\":[\"a\",\"b%s\"]}",
+				i,
+				1500000000000L + i,
+				i % 1000,
+				i,
+				i % 2 == 0,
+				i,
+				i % 7
+		);
+	}
+}
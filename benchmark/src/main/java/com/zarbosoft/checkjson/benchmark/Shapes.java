@@ -0,0 +1,177 @@
+package com.zarbosoft.checkjson.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zarbosoft.checkjson.Valid;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Payload shapes for {@link ReadBenchmark}, with a generator for a representative document of each.
+ */
+public class Shapes {
+	public static class Flat {
+		@JsonProperty
+		@Valid(pattern = "[a-z0-9]{8}")
+		public String id;
+
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 0)
+		public long timestamp;
+
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 0, max = Valid.Limit.INCLUSIVE, maxValue = 1000)
+		public int count;
+
+		@JsonProperty
+		@Valid
+		public double value;
+
+		@JsonProperty
+		@Valid
+		public boolean enabled;
+
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 64)
+		public String note;
+
+		@JsonProperty
+		@Valid
+		public String owner;
+
+		@JsonProperty
+		@Valid
+		public String region;
+
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 0)
+		public int retries;
+
+		@JsonProperty
+		@Valid
+		public float ratio;
+	}
+
+	public static class Deep {
+		@JsonProperty
+		@Valid
+		public int level;
+
+		@JsonProperty
+		@Valid
+		public String name;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Deep child;
+	}
+
+	public static class Numbers {
+		@JsonProperty
+		@Valid
+		public long[] timestamps;
+
+		@JsonProperty
+		@Valid
+		public double[] values;
+
+		@JsonProperty
+		@Valid
+		public List<Integer> counts;
+	}
+
+	public static class Tag {
+		@JsonProperty
+		@Valid(pattern = "[a-z]+")
+		public String key;
+
+		@JsonProperty
+		@Valid(pattern = "[a-z0-9_-]{1,16}")
+		public String value;
+	}
+
+	public static class Strings {
+		@JsonProperty
+		@Valid
+		public List<Tag> tags;
+	}
+
+	public static class Binary {
+		@JsonProperty
+		@Valid
+		public String name;
+
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 1)
+		public byte[] data;
+	}
+
+	public static String flat(final int i) {
+		return String.format("{\"id\":\"%08x\",\"timestamp\":%s,\"count\":%s,\"value\":%s.5,\"enabled\":%s,"
+						+ "\"note\":\"note %s\",\"owner\":\"owner-%s\",\"region\":\"us-east\",\"retries\":%s,\"ratio\":0.%s}",
+				i,
+				1500000000000L + i,
+				i % 1000,
+				i,
+				i % 2 == 0,
+				i,
+				i % 97,
+				i % 5,
+				i % 10
+		);
+	}
+
+	public static String deep(final int depth) {
+		final StringBuilder out = new StringBuilder();
+		for (int i = 0; i < depth; ++i) {
+			if (i > 0)
+				out.append(",\"child\":");
+			out.append(String.format("{\"level\":%s,\"name\":\"level %s\"", i, i));
+		}
+		for (int i = 0; i < depth; ++i)
+			out.append('}');
+		return out.toString();
+	}
+
+	public static String numbers(final int count) {
+		final Random random = new Random(0);
+		final StringBuilder timestamps = new StringBuilder();
+		final StringBuilder values = new StringBuilder();
+		final StringBuilder counts = new StringBuilder();
+		for (int i = 0; i < count; ++i) {
+			if (i > 0) {
+				timestamps.append(',');
+				values.append(',');
+				counts.append(',');
+			}
+			timestamps.append(1500000000000L + random.nextInt(1000000));
+			values.append(random.nextDouble() * 1000);
+			counts.append(random.nextInt(10000));
+		}
+		return String.format("{\"timestamps\":[%s],\"values\":[%s],\"counts\":[%s]}", timestamps, values, counts);
+	}
+
+	public static String strings(final int count) {
+		final StringBuilder out = new StringBuilder("{\"tags\":[");
+		for (int i = 0; i < count; ++i) {
+			if (i > 0)
+				out.append(',');
+			out.append(String.format("{\"key\":\"key%s\",\"value\":\"value_%s\"}", (char) ('a' + i % 26), i));
+		}
+		return out.append("]}").toString();
+	}
+
+	public static String binary(final int size) {
+		final byte[] data = new byte[size];
+		new Random(0).nextBytes(data);
+		return String.format("{\"name\":\"blob\",\"data\":\"%s\"}", Base64.getEncoder().encodeToString(data));
+	}
+
+	/**
+	 * A flat document with an out of range count.  Jackson has no constraints so it binds it successfully.
+	 */
+	public static String invalid(final int i) {
+		return flat(i).replaceFirst("\"count\":[0-9]+", "\"count\":5000");
+	}
+}
@@ -0,0 +1,62 @@
+package com.zarbosoft.checkjson.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.ValidationError;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the benchmark documents so that each shape measures the path it's meant to.
+ */
+public class ReadBenchmarkTest {
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Valid shapes bind to the same values as Jackson
+	 */
+	@Test
+	public void shapes() throws Exception {
+		for (final ReadBenchmark.Shape shape : ReadBenchmark.Shape.values()) {
+			if (shape == ReadBenchmark.Shape.INVALID)
+				continue;
+			final String json = shape.json();
+			final Object checked = CheckJson.read(json, shape.type);
+			final Object jackson = mapper.readValue(json, shape.type);
+			assertEquals(shape.name(), mapper.valueToTree(jackson), mapper.valueToTree(checked));
+		}
+	}
+
+	/**
+	 * The invalid shape is only rejected by a validation failure, not a syntax or binding problem
+	 */
+	@Test
+	public void invalid() throws Exception {
+		final String json = ReadBenchmark.Shape.INVALID.json();
+		mapper.readValue(json, ReadBenchmark.Shape.INVALID.type);
+		try {
+			CheckJson.read(json, ReadBenchmark.Shape.INVALID.type);
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.RANGE, e.getCode());
+			assertEquals("$.count", e.getPath());
+		}
+	}
+
+	@Test
+	public void benchmarks() throws Exception {
+		for (final ReadBenchmark.Shape shape : ReadBenchmark.Shape.values()) {
+			final ReadBenchmark benchmark = new ReadBenchmark();
+			benchmark.shape = shape;
+			benchmark.setup();
+			final boolean rejected = shape == ReadBenchmark.Shape.INVALID;
+			assertEquals(rejected, benchmark.checkjsonString() instanceof ValidationError);
+			assertEquals(rejected, benchmark.checkjsonStream() instanceof ValidationError);
+			assertTrue(shape.type.isInstance(benchmark.jacksonString()));
+			assertTrue(shape.type.isInstance(benchmark.jacksonStream()));
+		}
+	}
+}
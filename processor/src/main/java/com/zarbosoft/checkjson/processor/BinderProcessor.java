@@ -0,0 +1,480 @@
+package com.zarbosoft.checkjson.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a Binder for each public class with JsonProperty fields, and registers them as services so CheckJson
+ * uses them instead of reflection.  Classes the generated code couldn't bind exactly like the reflective path (final
+ * or generic fields, inaccessible classes, duplicate names) are skipped and keep using reflection.
+ */
+@SupportedAnnotationTypes("com.fasterxml.jackson.annotation.JsonProperty")
+public class BinderProcessor extends AbstractProcessor {
+	private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+	private static final String VALID = "com.zarbosoft.checkjson.Valid";
+	private static final String BINDER = "com.zarbosoft.checkjson.internal.Binder";
+	private static final String SERVICES = "META-INF/services/" + BINDER;
+
+	private final Set<String> binders = new TreeSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment round) {
+		if (processingEnv.getElementUtils().getTypeElement(BINDER) == null)
+			return false;
+		if (round.processingOver()) {
+			writeServices();
+			return false;
+		}
+		final TypeElement jsonProperty = processingEnv.getElementUtils().getTypeElement(JSON_PROPERTY);
+		if (jsonProperty == null)
+			return false;
+		final Set<TypeElement> classes = new LinkedHashSet<>();
+		for (final Element element : round.getElementsAnnotatedWith(jsonProperty)) {
+			if (element.getKind() == ElementKind.FIELD)
+				classes.add((TypeElement) element.getEnclosingElement());
+		}
+		for (final TypeElement type : classes) {
+			try {
+				generate(type);
+			} catch (final Unsupported e) {
+				processingEnv
+						.getMessager()
+						.printMessage(Diagnostic.Kind.NOTE,
+								String.format("No binder generated, %s will use reflection: %s", type, e.getMessage())
+						);
+			} catch (final IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.toString(), type);
+			}
+		}
+		return false;
+	}
+
+	private static class Unsupported extends Exception {
+		Unsupported(final String message) {
+			super(message);
+		}
+	}
+
+	private void generate(final TypeElement type) throws Unsupported, IOException {
+		for (Element at = type; at.getKind() != ElementKind.PACKAGE; at = at.getEnclosingElement()) {
+			if (!at.getModifiers().contains(Modifier.PUBLIC))
+				throw new Unsupported("not public");
+			if (at != type && !(at instanceof TypeElement))
+				throw new Unsupported("local class");
+		}
+		if (!type.getTypeParameters().isEmpty())
+			throw new Unsupported("generic class");
+		final PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+
+		// Same fields and order as Class.getFields: own fields then inherited
+		final Map<String, VariableElement> fields = new LinkedHashMap<>();
+		for (TypeElement at = type; at != null; at = superclass(at)) {
+			for (final VariableElement field : ElementFilter.fieldsIn(at.getEnclosedElements())) {
+				if (!field.getModifiers().contains(Modifier.PUBLIC))
+					continue;
+				final AnnotationMirror property = annotation(field, JSON_PROPERTY);
+				if (property == null)
+					continue;
+				String name = (String) value(property, "value");
+				if (name == null || name.isEmpty())
+					name = field.getSimpleName().toString();
+				if (fields.put(name, field) != null)
+					throw new Unsupported(String.format("duplicate key %s", name));
+				if (field.getModifiers().contains(Modifier.FINAL))
+					throw new Unsupported(String.format("field %s is final", field));
+				if (field.getModifiers().contains(Modifier.STATIC))
+					throw new Unsupported(String.format("field %s is static", field));
+				checkAccessible(field, field.asType(), pkg);
+			}
+		}
+
+		final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		final String simpleName =
+				(packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)).replace('$', '_') +
+						"_CheckJsonBinder";
+		final String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+		final String typeName = type.getQualifiedName().toString();
+
+		final StringBuilder names = new StringBuilder();
+		final StringBuilder infos = new StringBuilder();
+		for (final Map.Entry<String, VariableElement> entry : fields.entrySet()) {
+			final VariableElement field = entry.getValue();
+			names.append("\t\t\t\t").append(literal(entry.getKey())).append(",\n");
+			infos.append("\t\t\t\t").append(fieldInfo(typeName, field)).append(",\n");
+		}
+
+		final StringBuilder out = new StringBuilder();
+		if (!packageName.isEmpty())
+			out.append("package ").append(packageName).append(";\n\n");
+		out
+				.append("import com.zarbosoft.checkjson.Valid;\n")
+				.append("import com.zarbosoft.checkjson.internal.Accessor;\n")
+				.append("import com.zarbosoft.checkjson.internal.Binder;\n")
+				.append("import com.zarbosoft.checkjson.internal.TypeInfo;\n")
+				.append("import com.zarbosoft.checkjson.internal.ValidValues;\n\n")
+				.append("/**\n * Generated by ")
+				.append(BinderProcessor.class.getName())
+				.append(" from ")
+				.append(typeName)
+				.append(".\n */\n")
+				.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+				.append("public final class ")
+				.append(simpleName)
+				.append(" extends Binder {\n")
+				.append("\t@Override\n\tpublic Class<?> type() {\n\t\treturn ")
+				.append(typeName)
+				.append(".class;\n\t}\n\n")
+				.append("\t@Override\n\tpublic Object newInstance() {\n\t\t")
+				.append(constructible(type) ?
+						String.format("return new %s();", typeName) :
+						String.format(
+								"throw new AssertionError(String.format(\"Unable to instantiate class %%s\", %s.class), new NoSuchMethodException(\"%s.<init>()\"));",
+								typeName,
+								binaryName
+						))
+				.append("\n\t}\n\n")
+				.append("\t@Override\n\tpublic String[] names() {\n\t\treturn new String[] {\n")
+				.append(names)
+				.append("\t\t};\n\t}\n\n")
+				.append("\t@Override\n\tpublic TypeInfo[] fields() {\n\t\treturn new TypeInfo[] {\n")
+				.append(infos)
+				.append("\t\t};\n\t}\n}\n");
+
+		try (final Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+			writer.write(out.toString());
+		}
+		binders.add(qualifiedName);
+	}
+
+	/**
+	 * The generated binder names the field's type and its type arguments in class literals and casts, so they must be
+	 * accessible from the binder's package.  Their constructors aren't called by the binder - each type is
+	 * instantiated by its own binder or by reflection.
+	 *
+	 * @param field
+	 * @param type The field's type or a part of it
+	 * @param pkg  The package of the generated binder
+	 * @throws Unsupported If the binder couldn't refer to the type
+	 */
+	private void checkAccessible(final VariableElement field, final TypeMirror type, final PackageElement pkg)
+			throws Unsupported {
+		if (type.getKind() == TypeKind.ARRAY) {
+			checkAccessible(field, ((ArrayType) type).getComponentType(), pkg);
+			return;
+		}
+		if (type.getKind() != TypeKind.DECLARED)
+			return;
+		for (Element at = ((DeclaredType) type).asElement(); at.getKind() != ElementKind.PACKAGE;
+				at = at.getEnclosingElement()) {
+			if (!(at instanceof TypeElement))
+				throw new Unsupported(String.format("type %s of field %s is a local class", type, field));
+			if (at.getModifiers().contains(Modifier.PUBLIC))
+				continue;
+			if (at.getModifiers().contains(Modifier.PRIVATE) ||
+					!processingEnv.getElementUtils().getPackageOf(at).equals(pkg))
+				throw new Unsupported(String.format("type %s of field %s is not accessible", type, field));
+		}
+		for (final TypeMirror argument : ((DeclaredType) type).getTypeArguments())
+			checkAccessible(field, argument, pkg);
+	}
+
+	private TypeElement superclass(final TypeElement type) {
+		final TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED)
+			return null;
+		final TypeElement out = (TypeElement) ((DeclaredType) superclass).asElement();
+		if (out.getQualifiedName().contentEquals("java.lang.Object"))
+			return null;
+		return out;
+	}
+
+	/**
+	 * @return true if the class has a public no-argument constructor that can be called without an outer instance
+	 */
+	private boolean constructible(final TypeElement type) {
+		if (type.getModifiers().contains(Modifier.ABSTRACT))
+			return false;
+		if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC))
+			return false;
+		for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return An expression constructing the field's TypeInfo, matching TypeInfo(Field)
+	 */
+	private String fieldInfo(final String owner, final VariableElement field) throws Unsupported {
+		final String description = literal(describe(field));
+		final AnnotationMirror validAnnotation = annotation(field, VALID);
+		final String valid = validAnnotation == null ? "null" : valid(validAnnotation);
+		final TypeMirror type = field.asType();
+		final StringBuilder out = new StringBuilder();
+		out
+				.append("new TypeInfo(")
+				.append(description)
+				.append(", ")
+				.append(valid)
+				.append(", ")
+				.append(accessor(owner, field))
+				.append(", ")
+				.append(classLiteral(type));
+		if (type.getKind() == TypeKind.DECLARED) {
+			// Direct type arguments share the field's constraints
+			for (final TypeMirror argument : ((DeclaredType) type).getTypeArguments())
+				out
+						.append(", new TypeInfo(")
+						.append(description)
+						.append(", ")
+						.append(valid)
+						.append(", null, ")
+						.append(classLiteral(argument))
+						.append(arguments(argument))
+						.append(")");
+		}
+		return out.append(")").toString();
+	}
+
+	/**
+	 * @return Constructor arguments for the type arguments of a nested type, which have no constraints
+	 */
+	private String arguments(final TypeMirror type) throws Unsupported {
+		if (type.getKind() != TypeKind.DECLARED)
+			return "";
+		final StringBuilder out = new StringBuilder();
+		for (final TypeMirror argument : ((DeclaredType) type).getTypeArguments())
+			out
+					.append(", new TypeInfo(null, null, null, ")
+					.append(classLiteral(argument))
+					.append(arguments(argument))
+					.append(")");
+		return out.toString();
+	}
+
+	private String classLiteral(final TypeMirror type) throws Unsupported {
+		switch (type.getKind()) {
+			case DECLARED:
+			case ARRAY:
+			case BOOLEAN:
+			case BYTE:
+			case SHORT:
+			case INT:
+			case LONG:
+			case CHAR:
+			case FLOAT:
+			case DOUBLE:
+				if (type.getKind() == TypeKind.ARRAY)
+					classLiteral(((ArrayType) type).getComponentType());
+				return processingEnv.getTypeUtils().erasure(type).toString() + ".class";
+			default:
+				throw new Unsupported(String.format("unsupported type %s", type));
+		}
+	}
+
+	private String accessor(final String owner, final VariableElement field) throws Unsupported {
+		final TypeMirror type = field.asType();
+		final String name = field.getSimpleName().toString();
+		final String target = String.format("((%s) object).%s", owner, name);
+		final String erased = processingEnv.getTypeUtils().erasure(type).toString();
+		final String boxed = type.getKind().isPrimitive() ?
+				processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).toString() :
+				erased;
+		final StringBuilder out = new StringBuilder();
+		out
+				.append("new Accessor() {\n")
+				.append("\t\t\t\t\t@Override\n\t\t\t\t\tpublic Object get(final Object object) {\n\t\t\t\t\t\treturn ")
+				.append(target)
+				.append(";\n\t\t\t\t\t}\n\n")
+				.append("\t\t\t\t\t@Override\n\t\t\t\t\tpublic void set(final Object object, final Object value) {\n\t\t\t\t\t\t")
+				.append(target)
+				.append(" = (")
+				.append(boxed)
+				.append(") value;\n\t\t\t\t\t}\n");
+		final String setter;
+		switch (type.getKind()) {
+			case INT:
+				setter = "setInt";
+				break;
+			case LONG:
+				setter = "setLong";
+				break;
+			case FLOAT:
+				setter = "setFloat";
+				break;
+			case DOUBLE:
+				setter = "setDouble";
+				break;
+			case BOOLEAN:
+				setter = "setBoolean";
+				break;
+			default:
+				setter = null;
+		}
+		if (setter != null)
+			out
+					.append("\n\t\t\t\t\t@Override\n\t\t\t\t\tpublic void ")
+					.append(setter)
+					.append("(final Object object, final ")
+					.append(erased)
+					.append(" value) {\n\t\t\t\t\t\t")
+					.append(target)
+					.append(" = value;\n\t\t\t\t\t}\n");
+		return out.append("\t\t\t\t}").toString();
+	}
+
+	private String valid(final AnnotationMirror annotation) {
+		return String.format("new ValidValues(%s, %s, Valid.Limit.%s, Valid.Limit.%s, %s, %s, %s, %s, %s)",
+				value(annotation, "optional"),
+				value(annotation, "nullable"),
+				((VariableElement) value(annotation, "min")).getSimpleName(),
+				((VariableElement) value(annotation, "max")).getSimpleName(),
+				constant(value(annotation, "minValue")),
+				constant(value(annotation, "maxValue")),
+				floatLiteral((Float) value(annotation, "minFloatValue")),
+				floatLiteral((Float) value(annotation, "maxFloatValue")),
+				literal((String) value(annotation, "pattern"))
+		);
+	}
+
+	private static String floatLiteral(final float value) {
+		if (Float.isNaN(value))
+			return "Float.NaN";
+		return String.format("Float.intBitsToFloat(%s)", Float.floatToRawIntBits(value));
+	}
+
+	private String literal(final String value) {
+		return constant(value);
+	}
+
+	private String constant(final Object value) {
+		return processingEnv.getElementUtils().getConstantExpression(value);
+	}
+
+	/**
+	 * @return The field formatted like Field.toString, for messages
+	 */
+	private String describe(final VariableElement field) {
+		final StringBuilder out = new StringBuilder();
+		for (final Modifier modifier : new Modifier[] {
+				Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL, Modifier.TRANSIENT, Modifier.VOLATILE
+		}) {
+			if (field.getModifiers().contains(modifier))
+				out.append(modifier).append(' ');
+		}
+		return out
+				.append(typeName(field.asType()))
+				.append(' ')
+				.append(processingEnv.getElementUtils().getBinaryName((TypeElement) field.getEnclosingElement()))
+				.append('.')
+				.append(field.getSimpleName())
+				.toString();
+	}
+
+	private String typeName(final TypeMirror type) {
+		if (type.getKind() == TypeKind.ARRAY)
+			return typeName(((ArrayType) type).getComponentType()) + "[]";
+		if (type.getKind() == TypeKind.DECLARED)
+			return processingEnv
+					.getElementUtils()
+					.getBinaryName((TypeElement) ((DeclaredType) type).asElement())
+					.toString();
+		return type.toString();
+	}
+
+	private static AnnotationMirror annotation(final Element element, final String name) {
+		for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(name))
+				return annotation;
+		}
+		return null;
+	}
+
+	private Object value(final AnnotationMirror annotation, final String name) {
+		for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv
+				.getElementUtils()
+				.getElementValuesWithDefaults(annotation)
+				.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(name))
+				return entry.getValue().getValue();
+		}
+		return null;
+	}
+
+	/**
+	 * Register the binders, keeping binders from earlier incremental builds.
+	 */
+	private void writeServices() {
+		final Set<String> all = new TreeSet<>(binders);
+		try {
+			final FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+			try (
+					final BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(),
+							StandardCharsets.UTF_8
+					))
+			) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					line = line.trim();
+					if (!line.isEmpty())
+						all.add(line);
+				}
+			}
+		} catch (final IOException e) {
+			// No earlier build
+		}
+		if (all.isEmpty() || all.equals(binders) && binders.isEmpty())
+			return;
+		final List<String> lines = new ArrayList<>(all);
+		try (
+				final Writer writer = processingEnv
+						.getFiler()
+						.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES)
+						.openWriter()
+		) {
+			for (final String line : lines)
+				writer.write(line + "\n");
+		} catch (final IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Unable to write %s: %s", SERVICES, e));
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.zarbosoft.checkjson.processor.Compiled;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BinderTest {
+	private static Compiled compile() throws Exception {
+		return new Compiled(Collections.singletonMap("test.Root",
+				"package test;\n" +
+						"public class Root { @com.fasterxml.jackson.annotation.JsonProperty " +
+						"@com.zarbosoft.checkjson.Valid public int x; }\n"
+		));
+	}
+
+	@Test
+	public void found() throws Exception {
+		final Compiled compiled = compile();
+		assertTrue(compiled.success);
+		try (final URLClassLoader loader = compiled.loader()) {
+			final Class<?> root = loader.loadClass("test.Root");
+			final Binder binder = Binder.get(root);
+			assertNotNull(binder);
+			assertTrue(binder.type() == root);
+			assertNull(Binder.get(BinderTest.class));
+		}
+	}
+
+	/**
+	 * The cache mustn't keep loaders alive, for instance across webapp redeploys
+	 */
+	@Test
+	public void loaderCollected() throws Exception {
+		final Compiled compiled = compile();
+		final WeakReference<ClassLoader> reference = load(compiled);
+		final List<byte[]> pressure = new ArrayList<>();
+		for (int i = 0; i < 100 && reference.get() != null; ++i) {
+			System.gc();
+			pressure.add(new byte[1024 * 1024]);
+			if (pressure.size() > 16)
+				pressure.clear();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+	}
+
+	private static WeakReference<ClassLoader> load(final Compiled compiled) throws Exception {
+		try (final URLClassLoader loader = compiled.loader()) {
+			assertNotNull(Binder.get(loader.loadClass("test.Root")));
+			assertNotNull(ClassInfo.get(loader.loadClass("test.Root")));
+			return new WeakReference<>(loader);
+		}
+	}
+}
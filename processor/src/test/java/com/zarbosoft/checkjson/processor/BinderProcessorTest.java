@@ -0,0 +1,216 @@
+package com.zarbosoft.checkjson.processor;
+
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.ValidationError;
+import org.junit.Test;
+
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BinderProcessorTest {
+	private static final String IMPORTS = "import com.fasterxml.jackson.annotation.JsonProperty;\n" +
+			"import com.zarbosoft.checkjson.Valid;\n" +
+			"import java.util.List;\n";
+
+	private static Compiled compile(final String name, final String body) throws Exception {
+		return new Compiled(Collections.singletonMap("test." + name,
+				String.format("package test;\n%s\npublic class %s {\n%s\n}\n", IMPORTS, name, body)
+		));
+	}
+
+	private static boolean noted(final Compiled compiled, final String text) {
+		for (final String note : compiled.notes)
+			if (note.contains(text))
+				return true;
+		return false;
+	}
+
+	@Test
+	public void generate() throws Exception {
+		final Compiled compiled = compile("Root",
+				"@JsonProperty @Valid(max = Valid.Limit.INCLUSIVE, maxValue = 3) public int x;\n" +
+						"@JsonProperty(\"renamed\") @Valid(optional = true) public List<Inner> inners;\n" +
+						"public static class Inner { @JsonProperty @Valid public String s; }"
+		);
+		assertTrue(compiled.errors.toString(), compiled.success);
+		assertTrue(compiled.exists("test/Root_CheckJsonBinder.class"));
+		assertTrue(compiled.exists("test/Root_Inner_CheckJsonBinder.class"));
+		final String services = new String(Files.readAllBytes(compiled.out.resolve(
+				"META-INF/services/com.zarbosoft.checkjson.internal.Binder")), StandardCharsets.UTF_8);
+		assertEquals("test.Root_CheckJsonBinder\ntest.Root_Inner_CheckJsonBinder\n", services);
+		try (final URLClassLoader loader = compiled.loader()) {
+			final Class<?> root = loader.loadClass("test.Root");
+			final Object result = CheckJson.read("{\"x\": 2, \"renamed\": [{\"s\": \"a\"}]}", root);
+			assertEquals(2, root.getField("x").get(result));
+			try {
+				CheckJson.read("{\"x\": 4}", root);
+				fail();
+			} catch (final ValidationError e) {
+				assertEquals(ValidationError.Code.RANGE, e.getCode());
+				assertEquals("$.x", e.getPath());
+			}
+		}
+	}
+
+	private static final String PARITY_BODY =
+			"@JsonProperty @Valid(min = Valid.Limit.INCLUSIVE, minValue = 1, max = Valid.Limit.EXCLUSIVE, maxValue = 10) " +
+					"public int i;\n" +
+					"@JsonProperty @Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 5) public long l;\n" +
+					"@JsonProperty @Valid(optional = true, min = Valid.Limit.EXCLUSIVE, minFloatValue = 0) public float f;\n" +
+					"@JsonProperty @Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxFloatValue = 1) public double d;\n" +
+					"@JsonProperty @Valid(optional = true) public boolean b;\n" +
+					"@JsonProperty @Valid(optional = true, min = Valid.Limit.INCLUSIVE, minValue = 2, pattern = \"[a-z]+\") " +
+					"public String s;\n" +
+					"@JsonProperty @Valid(optional = true, nullable = true) public Integer boxed;\n" +
+					"@JsonProperty @Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 2) public byte[] data;\n" +
+					"@JsonProperty @Valid(optional = true) public int[] ints;\n" +
+					"@JsonProperty(\"renamed\") @Valid(optional = true) public List<Inner> inners;\n" +
+					"@JsonProperty @Valid(optional = true) public Inner inner;\n" +
+					"public static class Inner { @JsonProperty @Valid(max = Valid.Limit.INCLUSIVE, maxValue = 3) public int x; " +
+					"@JsonProperty @Valid(optional = true) public List<String> names; }";
+
+	private static final String[] INVALID = {
+			"{}",
+			"{\"l\": 1}",
+			"{\"i\": 0}",
+			"{\"i\": 10}",
+			"{\"i\": 1.5}",
+			"{\"i\": \"1\"}",
+			"{\"i\": null}",
+			"{\"i\": 99999999999}",
+			"{\"i\": 1, \"l\": 6}",
+			"{\"i\": 1, \"l\": 99999999999999999999}",
+			"{\"i\": 1, \"f\": 0}",
+			"{\"i\": 1, \"f\": \"x\"}",
+			"{\"i\": 1, \"d\": 1.5}",
+			"{\"i\": 1, \"b\": 1}",
+			"{\"i\": 1, \"s\": \"a\"}",
+			"{\"i\": 1, \"s\": \"AB\"}",
+			"{\"i\": 1, \"s\": 3}",
+			"{\"i\": 1, \"inner\": {\"x\": null}}",
+			"{\"i\": 1, \"boxed\": \"a\"}",
+			"{\"i\": 1, \"data\": \"AAAA\"}",
+			"{\"i\": 1, \"data\": \"A!==\"}",
+			"{\"i\": 1, \"ints\": [1, \"a\"]}",
+			"{\"i\": 1, \"ints\": {}}",
+			"{\"i\": 1, \"renamed\": [{\"x\": 1}, {\"x\": 4}]}",
+			"{\"i\": 1, \"renamed\": [{}]}",
+			"{\"i\": 1, \"renamed\": [1]}",
+			"{\"i\": 1, \"renamed\": {}}",
+			"{\"i\": 1, \"inner\": {\"x\": 1, \"other\": 2}}",
+			"{\"i\": 1, \"inner\": {\"x\": 1, \"names\": [\"a\", 2]}}",
+			"{\"i\": 1, \"inner\": {\"x\": 1, \"x\": 2}}",
+			"{\"i\": 1, \"inner\": []}",
+			"{\"i\": 1, \"other\": 1}",
+			"{\"i\": 1, \"i\": 2}",
+			"{\"i\": 1,}",
+			"[]",
+			"{\"i\": 1} 2"
+	};
+
+	/**
+	 * Generated binders must reject documents exactly as reflection does
+	 */
+	@Test
+	public void messageParity() throws Exception {
+		final Map<String, String> sources = Collections.singletonMap("test.Root",
+				String.format("package test;\n%s\npublic class Root {\n%s\n}\n", IMPORTS, PARITY_BODY)
+		);
+		final Compiled generated = new Compiled(sources);
+		final Compiled reflected = new Compiled(sources, false);
+		assertTrue(generated.errors.toString(), generated.success);
+		assertTrue(reflected.errors.toString(), reflected.success);
+		assertTrue(generated.exists("test/Root_CheckJsonBinder.class"));
+		assertTrue(generated.exists("test/Root_Inner_CheckJsonBinder.class"));
+		assertFalse(reflected.exists("test/Root_CheckJsonBinder.class"));
+		try (
+				final URLClassLoader generatedLoader = generated.loader();
+				final URLClassLoader reflectedLoader = reflected.loader()
+		) {
+			final Class<?> generatedRoot = generatedLoader.loadClass("test.Root");
+			final Class<?> reflectedRoot = reflectedLoader.loadClass("test.Root");
+			for (final String json : INVALID) {
+				final ValidationError expected = error(json, reflectedRoot);
+				final ValidationError actual = error(json, generatedRoot);
+				assertEquals(json, expected.getCode(), actual.getCode());
+				assertEquals(json, expected.getPath(), actual.getPath());
+				assertEquals(json, expected.getMessage(), actual.getMessage());
+			}
+		}
+	}
+
+	private static ValidationError error(final String json, final Class<?> root) throws Exception {
+		try {
+			CheckJson.read(json, root);
+		} catch (final ValidationError e) {
+			return e;
+		}
+		throw new AssertionError(String.format("Expected %s to be rejected", json));
+	}
+
+	@Test
+	public void privateFieldType() throws Exception {
+		final Compiled compiled = compile("Root",
+				"@JsonProperty @Valid public Hidden hidden;\n" +
+						"private static class Hidden { @JsonProperty @Valid public int x; }"
+		);
+		assertTrue(compiled.errors.toString(), compiled.success);
+		assertTrue(compiled.notes.toString(), noted(compiled, "test.Root.Hidden of field hidden is not accessible"));
+		assertFalse(compiled.exists("test/Root_CheckJsonBinder.class"));
+	}
+
+	@Test
+	public void privateTypeArgument() throws Exception {
+		final Compiled compiled = compile("Root",
+				"@JsonProperty @Valid public List<Hidden[]> hidden;\n" +
+						"private static class Hidden { @JsonProperty @Valid public int x; }"
+		);
+		assertTrue(compiled.errors.toString(), compiled.success);
+		assertFalse(compiled.exists("test/Root_CheckJsonBinder.class"));
+	}
+
+	@Test
+	public void fieldTypeVisibility() throws Exception {
+		final Map<String, String> sources = new HashMap<>();
+		sources.put("test.Local", "package test;\n" + IMPORTS + "class Local { @JsonProperty @Valid public int x; }\n");
+		sources.put("test.Root", "package test;\n" + IMPORTS + "public class Root { @JsonProperty @Valid public Local local; }\n");
+		// Visible to the subclass but not to a binder in its package
+		sources.put("other.Remote",
+				"package other;\n" + IMPORTS + "public class Remote extends test.Holder { @JsonProperty @Valid public Nested nested; }\n"
+		);
+		sources.put("test.Holder",
+				"package test;\n" + IMPORTS + "public class Holder { protected static class Nested { } }\n"
+		);
+		final Compiled compiled = new Compiled(sources);
+		// Accessible from the binder in the same package
+		assertTrue(compiled.exists("test/Root_CheckJsonBinder.class"));
+		// A protected class from another package is reported rather than failing the build
+		assertTrue(compiled.errors.toString(), compiled.success);
+		assertFalse(compiled.exists("other/Remote_CheckJsonBinder.class"));
+	}
+
+	@Test
+	public void nonPublicClass() throws Exception {
+		final Compiled compiled = new Compiled(Collections.singletonMap("test.Hidden",
+				"package test;\n" + IMPORTS + "class Hidden { @JsonProperty @Valid public int x; }\n"
+		));
+		assertTrue(compiled.success);
+		assertTrue(noted(compiled, "not public"));
+	}
+
+	@Test
+	public void finalField() throws Exception {
+		final Compiled compiled = compile("Root", "@JsonProperty @Valid public final int x = 0;");
+		assertTrue(compiled.success);
+		assertTrue(noted(compiled, "is final"));
+	}
+}
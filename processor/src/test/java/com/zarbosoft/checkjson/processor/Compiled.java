@@ -0,0 +1,88 @@
+package com.zarbosoft.checkjson.processor;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sources compiled in memory, with the processor unless disabled, to a temporary directory.
+ */
+public class Compiled {
+	public final boolean success;
+	public final List<String> notes = new ArrayList<>();
+	public final List<String> errors = new ArrayList<>();
+	public final Path out;
+
+	/**
+	 * @param sources Source text by class name
+	 */
+	public Compiled(final Map<String, String> sources) throws IOException {
+		this(sources, true);
+	}
+
+	/**
+	 * @param sources Source text by class name
+	 * @param process false to compile without the processor, so the classes are bound by reflection
+	 */
+	public Compiled(final Map<String, String> sources, final boolean process) throws IOException {
+		out = Files.createTempDirectory("checkjson-processor");
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		final List<JavaFileObject> units = new ArrayList<>();
+		for (final Map.Entry<String, String> source : sources.entrySet())
+			units.add(new SimpleJavaFileObject(URI.create(String.format("string:///%s.java",
+					source.getKey().replace('.', '/')
+			)), JavaFileObject.Kind.SOURCE) {
+				@Override
+				public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+					return source.getValue();
+				}
+			});
+		try (final StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+			files.setLocation(StandardLocation.CLASS_OUTPUT, Collections.singletonList(out.toFile()));
+			files.setLocation(StandardLocation.SOURCE_OUTPUT, Collections.singletonList(out.toFile()));
+			final List<File> classpath = new ArrayList<>();
+			for (final String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+				classpath.add(new File(entry));
+			files.setLocation(StandardLocation.CLASS_PATH, classpath);
+			final JavaCompiler.CompilationTask task =
+					compiler.getTask(null, files, diagnostics, Arrays.asList("-source", "8", "-target", "8", "-Xlint:-options"), null, units);
+			task.setProcessors(process ? Collections.singletonList(new BinderProcessor()) : Collections.emptyList());
+			success = task.call();
+		}
+		for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+			if (diagnostic.getKind() == Diagnostic.Kind.NOTE)
+				notes.add(diagnostic.getMessage(null));
+			else if (diagnostic.getKind() == Diagnostic.Kind.ERROR)
+				errors.add(diagnostic.getMessage(null));
+		}
+	}
+
+	public boolean exists(final String path) {
+		return Files.exists(out.resolve(path));
+	}
+
+	/**
+	 * @return A new loader for the compiled classes
+	 */
+	public URLClassLoader loader() throws IOException {
+		return new URLClassLoader(new URL[] {out.toUri().toURL()}, Compiled.class.getClassLoader());
+	}
+}
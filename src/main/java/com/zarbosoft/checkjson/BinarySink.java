@@ -0,0 +1,22 @@
+package com.zarbosoft.checkjson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A field type for large base64 values.  Rather than building a byte[] the decoded bytes are written to the sink as
+ * they're parsed, so the value never has to fit in memory.
+ * <p>
+ * Initialize the field with a new sink in the class (for example {@code public final BinarySink data = new
+ * TempFileSink();}) - on read the existing sink is opened and filled, never replaced.  Valid min/max lengths apply to the decoded
+ * bytes and are checked as they're written; if the document is rejected the sink may hold partial data.
+ */
+public interface BinarySink {
+	/**
+	 * Called once, when the value is reached.  The stream is closed after the last byte.
+	 *
+	 * @return Where to write the decoded bytes
+	 * @throws IOException
+	 */
+	OutputStream open() throws IOException;
+}
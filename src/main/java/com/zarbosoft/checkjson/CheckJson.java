@@ -5,126 +5,135 @@ import com.zarbosoft.checkjson.internal.*;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.util.ArrayDeque;
-import java.util.Base64;
-import java.util.Deque;
-import java.util.regex.Pattern;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CheckJson {
-	private static <T> T readInternal(
-			final JsonParser stream, final Class<T> rootType
+	private static final JsonFactory factory = new JsonFactory()
+			.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)
+			.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	/**
+	 * @param stream
+	 * @param rootType
+	 * @param options
+	 * @param sourceOffset See {@link Document#source(int)}
+	 */
+	static <T> T readInternal(
+			final JsonParser stream, final TypeInfo rootType, final Options options, final int sourceOffset
+	) throws IOException {
+		final Document document = new Document(rootType, options);
+		document.source(sourceOffset);
+		final ValidationError error = run(stream, document);
+		if (error != null)
+			throw error;
+		return (T) document.result();
+	}
+
+	static <T> T readIntoInternal(
+			final JsonParser stream,
+			final TypeInfo rootType,
+			final Options options,
+			final int sourceOffset,
+			final T into
 	) throws IOException {
-		final Deque<State> stack = new ArrayDeque<>();
-		final StateObject rootState = new StateObject(stack, new TypeInfo(rootType));
-		stack.addLast(rootState);
-		final T result = (T) rootState.object;
-		final Path path = new Path();
+		final Document document = new Document(rootType, into, options);
+		document.source(sourceOffset);
+		final ValidationError error = run(stream, document);
+		if (error != null)
+			throw error;
+		return (T) document.result();
+	}
+
+	static ValidationError validateInternal(
+			final JsonParser stream, final TypeInfo rootType, final Options options
+	) throws IOException {
+		return run(stream, new Document(rootType, new Path(), false, options));
+	}
+
+	private static ValidationError run(final JsonParser stream, final Document document) throws IOException {
+		document.begin(stream.getCurrentLocation());
+		ValidationError error = null;
 		try {
-			{
-				final JsonToken token = stream.nextToken();
-				if (token != JsonToken.START_OBJECT) {
-					throw new InternalValidationError("Missing initial {");
-				}
-			}
-			while (true) {
-				final JsonToken token = stream.nextToken();
-				if (token == null) {
-					if (!stack.isEmpty()) {
-						throw new InternalValidationError("Stream ended too early", path);
-					}
-					return result;
-				}
-				final State state = stack.getLast();
-				switch (token) {
-					case NOT_AVAILABLE:
-						// Only async mode
-						throw new AssertionError();
-					case START_OBJECT: {
-						state.eventStartObject();
-						path.object();
-						break;
-					}
-					case END_OBJECT: {
-						path.pop();
-						state.eventEndObject();
-						if (path.isEmpty())
-							break;
-						path.value();
-						break;
-					}
-					case START_ARRAY: {
-						state.eventStartArray();
-						path.array();
-						break;
-					}
-					case END_ARRAY: {
-						path.pop();
-						state.eventEndArray();
-						path.value();
-						break;
-					}
-					case FIELD_NAME: {
-						final String name = stream.getCurrentName();
-						path.key(name);
-						state.eventField(name);
-						break;
-					}
-					case VALUE_EMBEDDED_OBJECT:
-						// Supposedly shouldn't apply with normal options
-						throw new AssertionError();
-					case VALUE_STRING: {
-						final String value = stream.getValueAsString();
-						state.eventString(value);
-						path.value();
-						break;
-					}
-					case VALUE_NUMBER_INT: {
-						final String value = stream.getValueAsString();
-						state.eventInt(value);
-						path.value();
-						break;
-					}
-					case VALUE_NUMBER_FLOAT: {
-						final String value = stream.getValueAsString();
-						state.eventFloat(value);
-						path.value();
-						break;
-					}
-					case VALUE_TRUE: {
-						state.eventTrue();
-						path.value();
-						break;
-					}
-					case VALUE_FALSE: {
-						state.eventFalse();
-						path.value();
-						break;
-					}
-					case VALUE_NULL: {
-						state.eventNull();
-						path.value();
-						break;
-					}
-					default:
-						throw new AssertionError();
-				}
-			}
+			document.drive(stream, stream.nextToken());
+			if (stream.nextToken() != null)
+				throw new InternalValidationError(ValidationError.Code.SYNTAX, "Unexpected data after root object");
 		} catch (final JsonParseException e) {
-			final JsonLocation location = e.getLocation();
-			throw new ValidationError(String.format("%s%s",
-					e.getOriginalMessage(),
-					location == null ?
-							"" :
-							String.format("\nline %s col %s", location.getLineNr(), location.getColumnNr())
-			), path, e);
+			error = parseError(e, document);
 		} catch (final InternalValidationError e) {
-			throw e.finish(path);
+			error = document.error(e);
 		}
+		document.end(stream, error);
+		return error;
+	}
+
+	/**
+	 * @param options
+	 * @param size    The length of a single document input
+	 * @return An error if the input is longer than the byte limit, otherwise null
+	 */
+	static ValidationError sizeError(final Options options, final long size) {
+		if (size <= options.maxBytes)
+			return null;
+		return Document.limitBytes(options.maxBytes).finish(new Path(), options.stackTraces);
+	}
+
+	static void checkSize(final Options options, final long size) {
+		final ValidationError error = sizeError(options, size);
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Create a parser that fails once more than the byte limit is read.  The parser reads ahead on creation so this
+	 * may fail too.
+	 *
+	 * @throws ValidationError
+	 */
+	static JsonParser createParser(final JsonFactory factory, final Options options, final InputStream stream)
+			throws IOException {
+		if (options.maxBytes == Long.MAX_VALUE)
+			return factory.createParser(stream);
+		try {
+			return factory.createParser(new LimitedInputStream(stream, options.maxBytes));
+		} catch (final InternalValidationError e) {
+			throw e.finish(new Path(), options.stackTraces);
+		}
+	}
+
+	static ValidationError parseError(final JsonParseException e, final Document document) {
+		return parseError(e, document.path, e.getLocation(), document.options);
+	}
+
+	static ValidationError parseError(
+			final JsonParseException e, final Path path, final JsonLocation location, final Options options
+	) {
+		return new ValidationError(ValidationError.Code.SYNTAX,
+				path.lastKey(),
+				path,
+				() -> String.format("%s%s",
+						e.getOriginalMessage(),
+						location == null ?
+								"" :
+								String.format("\nline %s col %s", location.getLineNr(), location.getColumnNr())
+				),
+				e,
+				options.stackTraces
+		);
 	}
 
 	public static <T> T read(final String string, final Class<T> rootType) throws IOException {
-		return readInternal(new JsonFactory().createParser(string), rootType);
+		try (final JsonParser parser = factory.createParser(string)) {
+			return readInternal(parser, new TypeInfo(rootType), Options.DEFAULT, 0);
+		}
 	}
 
 	/**
@@ -139,122 +148,477 @@ public class CheckJson {
 	 * @throws ValidationError
 	 */
 	public static <T> T read(final InputStream stream, final Class<T> rootType) throws IOException {
-		return readInternal(new JsonFactory().createParser(stream), rootType);
+		try (final JsonParser parser = factory.createParser(stream)) {
+			return readInternal(parser, new TypeInfo(rootType), Options.DEFAULT, -1);
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from a slice of an array of UTF-8 (or other JSON encoding) bytes.  The bytes
+	 * are parsed in place.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @param rootType
+	 * @param <T>
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public static <T> T read(final byte[] data, final int offset, final int length, final Class<T> rootType)
+			throws IOException {
+		try (final JsonParser parser = factory.createParser(data, offset, length)) {
+			return readInternal(parser, new TypeInfo(rootType), Options.DEFAULT, offset);
+		}
+	}
+
+	public static <T> T read(final byte[] data, final Class<T> rootType) throws IOException {
+		return read(data, 0, data.length, rootType);
+	}
+
+	/**
+	 * Deserialize and validate an object from the remaining bytes of a buffer.  Heap buffers are parsed in place, direct
+	 * buffers are streamed into the parser without an intermediate copy of the whole document.  The buffer's position
+	 * is not changed.
+	 *
+	 * @param data
+	 * @param rootType
+	 * @param <T>
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public static <T> T read(final ByteBuffer data, final Class<T> rootType) throws IOException {
+		try (final JsonParser parser = createParser(factory, data)) {
+			return readInternal(parser, new TypeInfo(rootType), Options.DEFAULT, sourceOffset(data));
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from a memory mapped file.
+	 *
+	 * @param path
+	 * @param rootType
+	 * @param <T>
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public static <T> T read(final java.nio.file.Path path, final Class<T> rootType) throws IOException {
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel, rootType);
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from a memory mapped file, from the channel's current position to the end.
+	 * The channel is not closed.
+	 *
+	 * @param channel
+	 * @param rootType
+	 * @param <T>
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public static <T> T read(final FileChannel channel, final Class<T> rootType) throws IOException {
+		return read(map(channel), rootType);
+	}
+
+	/**
+	 * @return Where a parser from {@link #createParser(JsonFactory, ByteBuffer)} starts in its source array
+	 */
+	static int sourceOffset(final ByteBuffer data) {
+		return data.hasArray() ? data.arrayOffset() + data.position() : -1;
+	}
+
+	static JsonParser createParser(final JsonFactory factory, final ByteBuffer data) throws IOException {
+		if (data.hasArray())
+			return factory.createParser(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		return factory.createParser(new ByteBufferInputStream(data));
+	}
+
+	static MappedByteBuffer map(final FileChannel channel) throws IOException {
+		final long position = channel.position();
+		final long size = channel.size() - position;
+		if (size > Integer.MAX_VALUE)
+			throw new IOException("File is too large to map");
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+	}
+
+	/**
+	 * Check JSON against the Valid annotation constraints of a type without deserializing it.  No objects,
+	 * collections or (where the parser allows) value strings are created.
+	 *
+	 * @param string
+	 * @param rootType
+	 * @return null if the JSON is valid, otherwise the error that read would have thrown
+	 * @throws IOException
+	 */
+	public static ValidationError validate(final String string, final Class<?> rootType) throws IOException {
+		try (final JsonParser parser = factory.createParser(string)) {
+			return validateInternal(parser, new TypeInfo(rootType), Options.DEFAULT);
+		}
+	}
+
+	/**
+	 * @param stream Not closed
+	 * @param rootType
+	 * @return null if the JSON is valid, otherwise the error that read would have thrown
+	 * @throws IOException
+	 * @see #validate(String, Class)
+	 */
+	public static ValidationError validate(final InputStream stream, final Class<?> rootType) throws IOException {
+		try (final JsonParser parser = factory.createParser(stream)) {
+			return validateInternal(parser, new TypeInfo(rootType), Options.DEFAULT);
+		}
+	}
+
+	/**
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @param rootType
+	 * @return null if the JSON is valid, otherwise the error that read would have thrown
+	 * @throws IOException
+	 * @see #validate(String, Class)
+	 */
+	public static ValidationError validate(
+			final byte[] data, final int offset, final int length, final Class<?> rootType
+	) throws IOException {
+		try (final JsonParser parser = factory.createParser(data, offset, length)) {
+			return validateInternal(parser, new TypeInfo(rootType), Options.DEFAULT);
+		}
+	}
+
+	/**
+	 * @param data     The remaining bytes are checked, the position is not changed
+	 * @param rootType
+	 * @return null if the JSON is valid, otherwise the error that read would have thrown
+	 * @throws IOException
+	 * @see #validate(String, Class)
+	 */
+	public static ValidationError validate(final ByteBuffer data, final Class<?> rootType) throws IOException {
+		try (final JsonParser parser = createParser(factory, data)) {
+			return validateInternal(parser, new TypeInfo(rootType), Options.DEFAULT);
+		}
+	}
+
+	/**
+	 * Deserialize and validate a sequence of objects, either the elements of a top level array or newline (or other
+	 * whitespace) separated objects.  Records are read lazily one at a time from a single parser.  Errors name the
+	 * index of the failing record.  The stream is not closed.
+	 *
+	 * @param stream
+	 * @param rootType
+	 * @param <T>
+	 * @return A sequential stream of deserialized objects - close it to release the parser early
+	 * @throws IOException
+	 * @throws ValidationError During iteration
+	 */
+	public static <T> Stream<T> stream(final InputStream stream, final Class<T> rootType) throws IOException {
+		return streamInternal(factory.createParser(stream), new TypeInfo(rootType), Options.DEFAULT);
+	}
+
+	/**
+	 * Start reading a document from input pushed in chunks, for non-blocking servers.
+	 *
+	 * @param rootType
+	 * @param <T>
+	 * @return A new feeder for a single document
+	 * @throws IOException
+	 */
+	public static <T> CheckJsonFeeder<T> feeder(final Class<T> rootType) throws IOException {
+		return new CheckJsonFeeder<>(factory.createNonBlockingByteArrayParser(), new TypeInfo(rootType), Options.DEFAULT);
+	}
+
+	static <T> Stream<T> streamInternal(final JsonParser parser, final TypeInfo rootType, final Options options) {
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(new RecordIterator<T>(parser, rootType, options),
+						Spliterator.ORDERED | Spliterator.NONNULL
+				), false)
+				.onClose(() -> {
+					try {
+						parser.close();
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * Create a reusable reader for a root type.  The reader prepares the type's metadata up front and can be shared
+	 * between threads.
+	 *
+	 * @param rootType
+	 * @param <T>
+	 * @return A reader for rootType
+	 */
+	public static <T> CheckJsonReader<T> reader(final Class<T> rootType) {
+		return new CheckJsonReader<>(new JsonFactory(), rootType);
+	}
+
+	/**
+	 * Create a reusable reader for a root type that parses with a copy of the supplied factory.  The factory itself
+	 * isn't modified, and later changes to it don't affect the reader.
+	 *
+	 * @param factory
+	 * @param rootType
+	 * @param <T>
+	 * @return A reader for rootType
+	 */
+	public static <T> CheckJsonReader<T> reader(final JsonFactory factory, final Class<T> rootType) {
+		return new CheckJsonReader<>(factory, rootType);
+	}
+
+	/**
+	 * Serialize an object as UTF-8 JSON, checking it against the same Valid constraints as reading so the output reads
+	 * back without errors.  The stream is not closed.
+	 *
+	 * @param stream
+	 * @param value
+	 * @throws IOException
+	 * @throws ValidationError If a value breaks its constraints; the output is then incomplete
+	 */
+	public static void write(final OutputStream stream, final Object value) throws IOException {
+		write(stream, value, value.getClass());
+	}
+
+	/**
+	 * @param stream
+	 * @param value
+	 * @param rootType The type the document will be read as, for instance the base of a polymorphic type so the
+	 *                 discriminator is written
+	 * @throws IOException
+	 * @throws ValidationError
+	 * @see #write(OutputStream, Object)
+	 */
+	public static void write(final OutputStream stream, final Object value, final Class<?> rootType)
+			throws IOException {
+		try (final JsonGenerator generator = factory.createGenerator(stream, JsonEncoding.UTF8)) {
+			write(generator, value, rootType);
+		}
+	}
+
+	/**
+	 * Serialize an object to a generator, which is neither flushed nor closed.
+	 *
+	 * @param generator
+	 * @param value
+	 * @throws IOException
+	 * @throws ValidationError
+	 * @see #write(OutputStream, Object)
+	 */
+	public static void write(final JsonGenerator generator, final Object value) throws IOException {
+		write(generator, value, value.getClass());
+	}
+
+	public static void write(final JsonGenerator generator, final Object value, final Class<?> rootType)
+			throws IOException {
+		if (!rootType.isInstance(value))
+			throw new AssertionError(String.format("%s is not a %s", value.getClass(), rootType));
+		final DocumentWriter writer = new DocumentWriter(generator);
+		try {
+			writer.write(new TypeInfo(rootType), value);
+		} catch (final InternalValidationError e) {
+			throw e.finish(writer.path);
+		}
+	}
+
+	public static Valid getValid(final TypeInfo target) {
+		if (target.valid == null)
+			throw new AssertionError(String.format("%s has no Valid decorator.", target.field));
+		return target.valid;
 	}
 
-	public static Valid getValid(final Field field) {
-		final Valid valid = field.getAnnotation(Valid.class);
+	/**
+	 * @param valid
+	 * @return The longest length or largest size the constraints allow
+	 */
+	public static int maxLength(final Valid valid) {
 		if (valid == null)
-			throw new AssertionError(String.format("%s has no Valid decorator.", field));
-		return valid;
+			return Integer.MAX_VALUE;
+		switch (valid.max()) {
+			case INCLUSIVE:
+				return valid.maxValue();
+			case EXCLUSIVE:
+				return valid.maxValue() - 1;
+			default:
+				return Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * @param value
+	 * @return The value, shortened if it's too long to put in an error message
+	 */
+	public static String preview(final CharSequence value) {
+		if (value.length() <= 100)
+			return value.toString();
+		return String.format("%s... (%s more)", value.subSequence(0, 100), value.length() - 100);
 	}
 
-	public static String validateString(final Field field, final String raw) {
-		final String value = raw;
-		final Valid valid = getValid(field);
+	/**
+	 * @param target
+	 * @param value  A String or a view of the parser's text buffer
+	 * @param <S>
+	 * @return value
+	 */
+	public static <S extends CharSequence> S validateString(final TypeInfo target, final S value) {
+		final Valid valid = getValid(target);
 		if (valid.min() == Valid.Limit.INCLUSIVE && value.length() < valid.minValue())
-			throw new InternalValidationError("Value [%s] length %s is shorter than the minimum %s",
-					value,
+			throw new InternalValidationError(ValidationError.Code.LENGTH, "Value [%s] length %s is shorter than the minimum %s",
+					preview(value),
 					value.length(),
 					valid.minValue()
 			);
 		if (valid.min() == Valid.Limit.EXCLUSIVE && value.length() <= valid.minValue())
-			throw new InternalValidationError("Value [%s] length %s is shorter than the exclusive minimum %s",
-					value,
+			throw new InternalValidationError(ValidationError.Code.LENGTH, "Value [%s] length %s is shorter than the exclusive minimum %s",
+					preview(value),
 					value.length(),
 					valid.minValue()
 			);
 		if (valid.max() == Valid.Limit.INCLUSIVE && value.length() > valid.maxValue())
-			throw new InternalValidationError("Value [%s] length %s is longer than the maximum %s",
-					value,
+			throw new InternalValidationError(ValidationError.Code.LENGTH, "Value [%s] length %s is longer than the maximum %s",
+					preview(value),
 					value.length(),
 					valid.maxValue()
 			);
 		if (valid.max() == Valid.Limit.EXCLUSIVE && value.length() >= valid.maxValue())
-			throw new InternalValidationError("Value [%s] length %s is longer than the exclusive maximum %s",
-					value,
+			throw new InternalValidationError(ValidationError.Code.LENGTH, "Value [%s] length %s is longer than the exclusive maximum %s",
+					preview(value),
 					value.length(),
 					valid.maxValue()
 			);
-		if (!valid.pattern().isEmpty() && !Pattern.matches(valid.pattern(), value))
-			throw new InternalValidationError("Value [%s] does not match pattern [%s]", value, valid.pattern());
+		if (target.pattern != null && !target.pattern.matcher(value).matches())
+			throw new InternalValidationError(ValidationError.Code.PATTERN, "Value [%s] does not match pattern [%s]",
+					preview(value),
+					valid.pattern()
+			);
 		return value;
 	}
 
-	public static byte[] validateBytes(final Field field, final String raw) {
-		final byte[] bytes;
+	/**
+	 * Decode the current base64 string token straight from the parser's input, checking the length as bytes are
+	 * produced.
+	 *
+	 * @param target
+	 * @param stream
+	 * @param out    Receives the decoded bytes, or null to only validate
+	 * @return The decoded length
+	 * @throws IOException
+	 */
+	public static long readBinary(final TypeInfo target, final JsonParser stream, final OutputStream out)
+			throws IOException {
+		final Valid valid = target.field == null ? null : getValid(target);
+		final LimitedOutputStream limited = new LimitedOutputStream(out, valid);
 		try {
-			bytes = Base64.getDecoder().decode(raw);
+			stream.readBinaryValue(limited);
 		} catch (final IllegalArgumentException e) {
-			throw new InternalValidationError("Value [%s] is not valid base64.", raw);
+			throw new InternalValidationError(e, ValidationError.Code.FORMAT, "Value is not valid base64");
+		} catch (final JsonParseException e) {
+			if (!stream.canParseAsync())
+				throw e;
+			// The non-blocking parser only produces complete strings, so this is bad base64 rather than bad syntax
+			throw new InternalValidationError(e, ValidationError.Code.FORMAT, "Value is not valid base64");
 		}
-		final Valid valid = getValid(field);
-		if (valid.min() == Valid.Limit.INCLUSIVE && bytes.length < valid.minValue())
-			throw new InternalValidationError("Value [%s] length %s is shorter than the minimum %s",
-					bytes,
-					bytes.length,
+		final long length = limited.count;
+		if (valid != null)
+			validateMinLength(valid, length);
+		return length;
+	}
+
+	/**
+	 * Check the minimum length of a binary value.  The maximum is checked as bytes are produced, see
+	 * {@link LimitedOutputStream}.
+	 *
+	 * @param valid
+	 * @param length
+	 */
+	public static void validateMinLength(final Valid valid, final long length) {
+		if (valid.min() == Valid.Limit.INCLUSIVE && length < valid.minValue())
+			throw new InternalValidationError(ValidationError.Code.LENGTH,
+					"Value length %s is shorter than the minimum %s",
+					length,
 					valid.minValue()
 			);
-		if (valid.min() == Valid.Limit.EXCLUSIVE && bytes.length <= valid.minValue())
-			throw new InternalValidationError("Value [%s] length %s is shorter than the exclusive minimum %s",
-					bytes,
-					bytes.length,
+		if (valid.min() == Valid.Limit.EXCLUSIVE && length <= valid.minValue())
+			throw new InternalValidationError(ValidationError.Code.LENGTH,
+					"Value length %s is shorter than the exclusive minimum %s",
+					length,
 					valid.minValue()
 			);
-		if (valid.max() == Valid.Limit.INCLUSIVE && bytes.length > valid.maxValue())
-			throw new InternalValidationError("Value [%s] length %s is longer than the maximum %s",
-					bytes,
-					bytes.length,
-					valid.maxValue()
-			);
-		if (valid.max() == Valid.Limit.EXCLUSIVE && bytes.length >= valid.maxValue())
-			throw new InternalValidationError("Value [%s] length %s is longer than the exclusive maximum %s",
-					bytes,
-					bytes.length,
-					valid.maxValue()
-			);
-		return bytes;
 	}
 
-	public static int validateInt(final Field field, final String value) {
-		final int v;
-		try {
-			v = Integer.parseInt(value);
-		} catch (final NumberFormatException e) {
-			throw new InternalValidationError("Unsupported int format [%s]", value);
-		}
-		if (field != null) {
-			final Valid valid = getValid(field);
-			if (valid.min() == Valid.Limit.EXCLUSIVE && v <= valid.minValue())
-				throw new InternalValidationError("Value %s is below exclusive minimum %s", v, valid.minValue());
-			if (valid.min() == Valid.Limit.INCLUSIVE && v < valid.minValue())
-				throw new InternalValidationError("Value %s is below inclusive minimum %s", v, valid.minValue());
-			if (valid.max() == Valid.Limit.EXCLUSIVE && v >= valid.maxValue())
-				throw new InternalValidationError("Value %s is above exclusive maximum %s", v, valid.maxValue());
-			if (valid.max() == Valid.Limit.INCLUSIVE && v > valid.maxValue())
-				throw new InternalValidationError("Value %s is above inclusive maximum %s", v, valid.maxValue());
-		}
+	public static int validateInt(final TypeInfo target, final JsonParser stream) throws IOException {
+		if (stream.getNumberType() != JsonParser.NumberType.INT)
+			throw new InternalValidationError(ValidationError.Code.FORMAT, "Unsupported int format [%s]", stream.getText());
+		final int v = stream.getIntValue();
+		if (target.field != null)
+			validateIntRange(getValid(target), v);
 		return v;
 	}
 
-	public static long validateLong(final Field field, final String value) {
-		final long v;
-		try {
-			v = Long.parseLong(value);
-		} catch (final NumberFormatException e) {
-			throw new InternalValidationError("Unsupported long format [%s]", value);
-		}
-		if (field != null) {
-			final Valid valid = getValid(field);
-			if (valid.min() == Valid.Limit.EXCLUSIVE && v <= valid.minValue())
-				throw new InternalValidationError("Value %s is below exclusive minimum %s", v, valid.minValue());
-			if (valid.min() == Valid.Limit.INCLUSIVE && v < valid.minValue())
-				throw new InternalValidationError("Value %s is below inclusive minimum %s", v, valid.minValue());
-			if (valid.max() == Valid.Limit.EXCLUSIVE && v >= valid.maxValue())
-				throw new InternalValidationError("Value %s is above exclusive maximum %s", v, valid.maxValue());
-			if (valid.max() == Valid.Limit.INCLUSIVE && v > valid.maxValue())
-				throw new InternalValidationError("Value %s is above inclusive maximum %s", v, valid.maxValue());
-		}
+	public static long validateLong(final TypeInfo target, final JsonParser stream) throws IOException {
+		final JsonParser.NumberType type = stream.getNumberType();
+		if (type != JsonParser.NumberType.INT && type != JsonParser.NumberType.LONG)
+			throw new InternalValidationError(ValidationError.Code.FORMAT, "Unsupported long format [%s]", stream.getText());
+		final long v = stream.getLongValue();
+		if (target.field != null)
+			validateIntRange(getValid(target), v);
 		return v;
 	}
+
+	public static void validateIntRange(final Valid valid, final long v) {
+		if (valid.min() == Valid.Limit.EXCLUSIVE && v <= valid.minValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is below exclusive minimum %s", v, valid.minValue());
+		if (valid.min() == Valid.Limit.INCLUSIVE && v < valid.minValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is below inclusive minimum %s", v, valid.minValue());
+		if (valid.max() == Valid.Limit.EXCLUSIVE && v >= valid.maxValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is above exclusive maximum %s", v, valid.maxValue());
+		if (valid.max() == Valid.Limit.INCLUSIVE && v > valid.maxValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is above inclusive maximum %s", v, valid.maxValue());
+	}
+
+	/**
+	 * @param valid
+	 * @param v
+	 * @param single If the value is a float rather than a double, for formatting
+	 */
+	public static void validateFloatRange(final Valid valid, final double v, final boolean single) {
+		if (valid.min() == Valid.Limit.EXCLUSIVE && v <= valid.minFloatValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is below exclusive minimum %s",
+					single ? (Object) (float) v : (Object) v,
+					valid.minFloatValue()
+			);
+		if (valid.min() == Valid.Limit.INCLUSIVE && v < valid.minFloatValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is below inclusive minimum %s",
+					single ? (Object) (float) v : (Object) v,
+					valid.minFloatValue()
+			);
+		if (valid.max() == Valid.Limit.EXCLUSIVE && v >= valid.maxFloatValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is above exclusive maximum %s",
+					single ? (Object) (float) v : (Object) v,
+					valid.maxFloatValue()
+			);
+		if (valid.max() == Valid.Limit.INCLUSIVE && v > valid.maxFloatValue())
+			throw new InternalValidationError(ValidationError.Code.RANGE, "Value %s is above inclusive maximum %s",
+					single ? (Object) (float) v : (Object) v,
+					valid.maxFloatValue()
+			);
+	}
+
+	public static void validateSize(final Valid valid, final int size) {
+		if (valid == null)
+			return;
+		if (valid.min() == Valid.Limit.EXCLUSIVE && size <= valid.minValue())
+			throw new InternalValidationError(ValidationError.Code.SIZE, "Array size %s is below exclusive minimum %s", size, valid.minValue());
+		if (valid.min() == Valid.Limit.INCLUSIVE && size < valid.minValue())
+			throw new InternalValidationError(ValidationError.Code.SIZE, "Array size %s is below inclusive minimum %s", size, valid.minValue());
+		if (valid.max() == Valid.Limit.EXCLUSIVE && size >= valid.maxValue())
+			throw new InternalValidationError(ValidationError.Code.SIZE, "Array size %s is above exclusive maximum %s", size, valid.maxValue());
+		if (valid.max() == Valid.Limit.INCLUSIVE && size > valid.maxValue())
+			throw new InternalValidationError(ValidationError.Code.SIZE, "Array size %s is above inclusive maximum %s", size, valid.maxValue());
+	}
 }
@@ -0,0 +1,155 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.zarbosoft.checkjson.internal.Document;
+import com.zarbosoft.checkjson.internal.InternalValidationError;
+import com.zarbosoft.checkjson.internal.Options;
+import com.zarbosoft.checkjson.internal.TypeInfo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads one document from chunks of bytes as they arrive, without blocking on input.  Push each chunk with feed,
+ * then call finish once the input is complete to get the validated object.
+ * <p>
+ * A feeder reads a single document and is not thread safe.  Get a new one from the reader for each document.
+ *
+ * @param <T>
+ */
+public class CheckJsonFeeder<T> implements Closeable {
+	private final JsonParser stream;
+	private final ByteArrayFeeder feeder;
+	private final Document document;
+	private byte[] scratch;
+	private boolean complete = false;
+	private boolean failed = false;
+	private boolean begun = false;
+	private long fed = 0;
+
+	CheckJsonFeeder(final JsonParser stream, final TypeInfo rootType, final Options options) {
+		this.stream = stream;
+		this.feeder = (ByteArrayFeeder) stream.getNonBlockingInputFeeder();
+		this.document = new Document(rootType, options);
+	}
+
+	/**
+	 * Process the next chunk of the document.  The array isn't retained after this returns.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return true if the root object is complete - only trailing whitespace may follow
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public boolean feed(final byte[] data, final int offset, final int length) throws IOException {
+		if (failed)
+			throw new IllegalStateException("Document already failed validation");
+		if (length == 0)
+			return complete;
+		if (!begun) {
+			begun = true;
+			document.begin(stream.getCurrentLocation());
+		}
+		fed += length;
+		if (fed > document.options.maxBytes)
+			throw fail(document.error(Document.limitBytes(document.options.maxBytes)));
+		document.chunk(offset);
+		feeder.feedInput(data, offset, offset + length);
+		drain();
+		return complete;
+	}
+
+	public boolean feed(final byte[] data) throws IOException {
+		return feed(data, 0, data.length);
+	}
+
+	/**
+	 * Process the remaining bytes of the buffer.  Direct buffers are copied through a reused scratch array since the
+	 * parser only accepts arrays.
+	 *
+	 * @param data
+	 * @return true if the root object is complete - only trailing whitespace may follow
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public boolean feed(final ByteBuffer data) throws IOException {
+		if (data.hasArray()) {
+			final int length = data.remaining();
+			final boolean out = feed(data.array(), data.arrayOffset() + data.position(), length);
+			data.position(data.position() + length);
+			return out;
+		}
+		boolean out = complete;
+		while (data.hasRemaining()) {
+			if (scratch == null)
+				scratch = new byte[8192];
+			final int length = Math.min(scratch.length, data.remaining());
+			data.get(scratch, 0, length);
+			out = feed(scratch, 0, length);
+		}
+		return out;
+	}
+
+	/**
+	 * Signal the end of input.
+	 *
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError If the document is incomplete or invalid
+	 */
+	public T finish() throws IOException {
+		if (failed)
+			throw new IllegalStateException("Document already failed validation");
+		feeder.endOfInput();
+		drain();
+		if (!complete) {
+			failed = true;
+			final ValidationError error =
+					document.error(new InternalValidationError(ValidationError.Code.SYNTAX, "Stream ended too early"));
+			document.end(stream, error);
+			throw error;
+		}
+		document.end(stream, null);
+		stream.close();
+		return (T) document.result();
+	}
+
+	private void drain() throws IOException {
+		try {
+			while (true) {
+				final JsonToken token = stream.nextToken();
+				if (token == JsonToken.NOT_AVAILABLE)
+					return;
+				if (complete) {
+					if (token == null)
+						return;
+					throw new InternalValidationError(ValidationError.Code.SYNTAX, "Unexpected data after root object");
+				}
+				if (token == null)
+					return;
+				complete = document.feed(stream, token);
+			}
+		} catch (final JsonParseException e) {
+			throw fail(CheckJson.parseError(e, document));
+		} catch (final InternalValidationError e) {
+			throw fail(document.error(e));
+		}
+	}
+
+	private ValidationError fail(final ValidationError error) {
+		failed = true;
+		document.end(stream, error);
+		return error;
+	}
+
+	@Override
+	public void close() throws IOException {
+		stream.close();
+	}
+}
@@ -0,0 +1,50 @@
+package com.zarbosoft.checkjson;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receives statistics for every document a reader reads or validates.  Install with
+ * {@link CheckJsonReader#withListener(CheckJsonListener)}; readers without a listener don't measure anything.
+ * Called on the reading thread, so implementations must be thread safe if the reader is shared.
+ */
+@FunctionalInterface
+public interface CheckJsonListener {
+	/**
+	 * @param rootType The reader's root class
+	 * @param stats
+	 * @param error    The rejection, or null if the document was valid
+	 */
+	void document(Class<?> rootType, DocumentStats stats, ValidationError error);
+
+	/**
+	 * @param listeners
+	 * @return A listener that calls each of the listeners in order
+	 */
+	static CheckJsonListener all(final CheckJsonListener... listeners) {
+		return (rootType, stats, error) -> {
+			for (final CheckJsonListener listener : listeners)
+				listener.document(rootType, stats, error);
+		};
+	}
+
+	/**
+	 * Forward a sample of slow documents, for instance to log them.
+	 *
+	 * @param thresholdNanos Documents that took at least this long are slow
+	 * @param every          Forward one of every this many slow documents
+	 * @param target
+	 * @return A listener that forwards a sample of slow documents to the target
+	 */
+	static CheckJsonListener slow(final long thresholdNanos, final int every, final CheckJsonListener target) {
+		if (every < 1)
+			throw new IllegalArgumentException("every must be at least 1");
+		final AtomicLong count = new AtomicLong();
+		return (rootType, stats, error) -> {
+			if (stats.nanos < thresholdNanos)
+				return;
+			if (count.getAndIncrement() % every != 0)
+				return;
+			target.document(rootType, stats, error);
+		};
+	}
+}
@@ -0,0 +1,117 @@
+package com.zarbosoft.checkjson;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe running totals of documents and rejections, for export to a metrics system.  Rejections are counted
+ * per root class, path pattern and error code.
+ */
+public class CheckJsonMetrics implements CheckJsonListener {
+	/**
+	 * Rejection count key
+	 */
+	public static final class Rejection {
+		public final Class<?> rootType;
+		/**
+		 * See {@link ValidationError#getPathPattern()}
+		 */
+		public final String path;
+		public final ValidationError.Code code;
+
+		public Rejection(final Class<?> rootType, final String path, final ValidationError.Code code) {
+			this.rootType = rootType;
+			this.path = path;
+			this.code = code;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o)
+				return true;
+			if (!(o instanceof Rejection))
+				return false;
+			final Rejection other = (Rejection) o;
+			return rootType == other.rootType && path.equals(other.path) && code == other.code;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(rootType, path, code);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s %s %s", rootType.getName(), path, code);
+		}
+	}
+
+	private final LongAdder documents = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private final LongAdder tokens = new LongAdder();
+	private final LongAdder nanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+	private final ConcurrentHashMap<Rejection, LongAdder> rejections = new ConcurrentHashMap<>();
+
+	@Override
+	public void document(final Class<?> rootType, final DocumentStats stats, final ValidationError error) {
+		documents.increment();
+		bytes.add(stats.bytes);
+		tokens.add(stats.tokens);
+		nanos.add(stats.nanos);
+		maxNanos.accumulate(stats.nanos);
+		maxDepth.accumulate(stats.maxDepth);
+		if (error != null)
+			rejections
+					.computeIfAbsent(new Rejection(rootType, error.getPathPattern(), error.getCode()),
+							k -> new LongAdder()
+					)
+					.increment();
+	}
+
+	/**
+	 * @return Documents read or validated, including rejected documents
+	 */
+	public long getDocuments() {
+		return documents.sum();
+	}
+
+	public long getBytes() {
+		return bytes.sum();
+	}
+
+	public long getTokens() {
+		return tokens.sum();
+	}
+
+	public long getNanos() {
+		return nanos.sum();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public int getMaxDepth() {
+		return (int) maxDepth.get();
+	}
+
+	public long getRejectionCount() {
+		return rejections.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * @return A snapshot of the rejection counts
+	 */
+	public Map<Rejection, Long> getRejections() {
+		final Map<Rejection, Long> out = new HashMap<>();
+		rejections.forEach((k, v) -> out.put(k, v.sum()));
+		return Collections.unmodifiableMap(out);
+	}
+}
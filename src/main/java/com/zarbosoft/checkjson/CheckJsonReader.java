@@ -0,0 +1,367 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.zarbosoft.checkjson.internal.ClassInfo;
+import com.zarbosoft.checkjson.internal.Options;
+import com.zarbosoft.checkjson.internal.TypeInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads a single root type.  Readers are immutable and thread safe - create one per root type and share it so that
+ * the parser factory's symbol tables and buffers are reused between documents.
+ *
+ * @param <T>
+ */
+public class CheckJsonReader<T> {
+	private final JsonFactory factory;
+	private final TypeInfo rootType;
+	private final Options options;
+
+	CheckJsonReader(final JsonFactory factory, final Class<T> rootType) {
+		this.factory = factory.copy().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+		this.rootType = new TypeInfo(rootType);
+		this.options = Options.DEFAULT;
+		ClassInfo.prepare(this.rootType);
+	}
+
+	private CheckJsonReader(final CheckJsonReader<T> other, final Options options) {
+		this.factory = other.factory;
+		this.rootType = other.rootType;
+		this.options = options;
+	}
+
+	/**
+	 * Whether thrown ValidationErrors capture a stack trace (on by default).  Turn this off when most input is
+	 * expected to be invalid, for instance on public endpoints - rejections then cost little more than the parse.
+	 * Messages are always formatted lazily; use {@link ValidationError#getCode()} and
+	 * {@link ValidationError#getField()} to classify errors without formatting.
+	 *
+	 * @param stackTraces
+	 * @return A reader with the setting changed
+	 */
+	public CheckJsonReader<T> withStackTraces(final boolean stackTraces) {
+		return new CheckJsonReader<>(this, options.withStackTraces(stackTraces));
+	}
+
+	/**
+	 * Report statistics for each document to a listener.  Without a listener nothing is measured.
+	 *
+	 * @param listener The listener, or null to remove it
+	 * @return A reader with the listener installed
+	 * @see CheckJsonMetrics
+	 */
+	public CheckJsonReader<T> withListener(final CheckJsonListener listener) {
+		return new CheckJsonReader<>(this, options.withListener(listener));
+	}
+
+	/**
+	 * Limit the nesting depth of objects and arrays in each document.  The root object has depth 1.
+	 *
+	 * @param maxDepth
+	 * @return A reader with the limit set
+	 */
+	public CheckJsonReader<T> withMaxDepth(final int maxDepth) {
+		return new CheckJsonReader<>(this, options.withMaxDepth(maxDepth));
+	}
+
+	/**
+	 * Limit the number of JSON tokens (values, brackets and field names) in each document.
+	 *
+	 * @param maxTokens
+	 * @return A reader with the limit set
+	 */
+	public CheckJsonReader<T> withMaxTokens(final long maxTokens) {
+		return new CheckJsonReader<>(this, options.withMaxTokens(maxTokens));
+	}
+
+	/**
+	 * Limit the size of each document.  Inputs of known size are rejected before parsing and streams as soon as the
+	 * limit is passed, so the parser never buffers more than this.  Records in streams are checked once each record is
+	 * read.  For String input this counts characters.
+	 *
+	 * @param maxBytes
+	 * @return A reader with the limit set
+	 */
+	public CheckJsonReader<T> withMaxBytes(final long maxBytes) {
+		return new CheckJsonReader<>(this, options.withMaxBytes(maxBytes));
+	}
+
+	/**
+	 * Skip fields that aren't declared in the class rather than rejecting the document, for every class.  Classes
+	 * can also opt in individually with {@code @JsonIgnoreProperties(ignoreUnknown = true)}.  Skipped values are
+	 * passed over by the parser without being bound, validated or counted against the token limit.
+	 *
+	 * @param ignoreUnknown
+	 * @return A reader with the setting changed
+	 */
+	public CheckJsonReader<T> withIgnoreUnknown(final boolean ignoreUnknown) {
+		return new CheckJsonReader<>(this, options.withIgnoreUnknown(ignoreUnknown));
+	}
+
+	public T read(final String string) throws IOException {
+		CheckJson.checkSize(options, string.length());
+		try (final JsonParser parser = factory.createParser(string)) {
+			return CheckJson.readInternal(parser, rootType, options, 0);
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from JSON according to Valid annotation constraints.  The stream is not
+	 * closed.
+	 *
+	 * @param stream
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public T read(final InputStream stream) throws IOException {
+		try (final JsonParser parser = CheckJson.createParser(factory, options, stream)) {
+			return CheckJson.readInternal(parser, rootType, options, -1);
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from a slice of a byte array, parsing the bytes in place.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public T read(final byte[] data, final int offset, final int length) throws IOException {
+		CheckJson.checkSize(options, length);
+		try (final JsonParser parser = factory.createParser(data, offset, length)) {
+			return CheckJson.readInternal(parser, rootType, options, offset);
+		}
+	}
+
+	public T read(final byte[] data) throws IOException {
+		return read(data, 0, data.length);
+	}
+
+	/**
+	 * Deserialize and validate an object from the remaining bytes of a buffer without changing its position.
+	 *
+	 * @param data
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 * @see CheckJson#read(ByteBuffer, Class)
+	 */
+	public T read(final ByteBuffer data) throws IOException {
+		CheckJson.checkSize(options, data.remaining());
+		try (final JsonParser parser = CheckJson.createParser(factory, data)) {
+			return CheckJson.readInternal(parser, rootType, options, CheckJson.sourceOffset(data));
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from a memory mapped file.
+	 *
+	 * @param path
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public T read(final java.nio.file.Path path) throws IOException {
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel);
+		}
+	}
+
+	/**
+	 * Deserialize and validate an object from a memory mapped file, from the channel's current position to the end.
+	 * The channel is not closed.
+	 *
+	 * @param channel
+	 * @return The deserialized object
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public T read(final FileChannel channel) throws IOException {
+		return read(CheckJson.map(channel));
+	}
+
+	/**
+	 * Deserialize and validate into an existing object, to avoid allocating when results are discarded after use.
+	 * Nested objects, lists, sets and deques already in the object graph are cleared and refilled where the document
+	 * has them, and fields missing from the document are reset to the value they'd have in a new object, so the result
+	 * is the same as {@link #read(String)}.  Strings, boxed numbers and primitive arrays are still allocated.  If
+	 * validation fails the object is left partially filled.
+	 *
+	 * @param string
+	 * @param into   An object of the root type, or of the subtype named by the document for polymorphic roots
+	 * @return into, or a new object if the document's type doesn't match its class
+	 * @throws IOException
+	 * @throws ValidationError
+	 */
+	public T readInto(final String string, final T into) throws IOException {
+		CheckJson.checkSize(options, string.length());
+		try (final JsonParser parser = factory.createParser(string)) {
+			return CheckJson.readIntoInternal(parser, rootType, options, 0, into);
+		}
+	}
+
+	/**
+	 * @param stream Not closed
+	 * @param into
+	 * @return into, or a new object if the document's type doesn't match its class
+	 * @throws IOException
+	 * @throws ValidationError
+	 * @see #readInto(String, Object)
+	 */
+	public T readInto(final InputStream stream, final T into) throws IOException {
+		try (final JsonParser parser = CheckJson.createParser(factory, options, stream)) {
+			return CheckJson.readIntoInternal(parser, rootType, options, -1, into);
+		}
+	}
+
+	/**
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @param into
+	 * @return into, or a new object if the document's type doesn't match its class
+	 * @throws IOException
+	 * @throws ValidationError
+	 * @see #readInto(String, Object)
+	 */
+	public T readInto(final byte[] data, final int offset, final int length, final T into) throws IOException {
+		CheckJson.checkSize(options, length);
+		try (final JsonParser parser = factory.createParser(data, offset, length)) {
+			return CheckJson.readIntoInternal(parser, rootType, options, offset, into);
+		}
+	}
+
+	public T readInto(final byte[] data, final T into) throws IOException {
+		return readInto(data, 0, data.length, into);
+	}
+
+	/**
+	 * @param data Read from its position to its limit, without changing its position
+	 * @param into
+	 * @return into, or a new object if the document's type doesn't match its class
+	 * @throws IOException
+	 * @throws ValidationError
+	 * @see #readInto(String, Object)
+	 */
+	public T readInto(final ByteBuffer data, final T into) throws IOException {
+		CheckJson.checkSize(options, data.remaining());
+		try (final JsonParser parser = CheckJson.createParser(factory, data)) {
+			return CheckJson.readIntoInternal(parser, rootType, options, CheckJson.sourceOffset(data), into);
+		}
+	}
+
+	/**
+	 * Check JSON against the root type's constraints without deserializing it.
+	 *
+	 * @param string
+	 * @return null if the JSON is valid, otherwise the error that read would have thrown
+	 * @throws IOException
+	 * @see CheckJson#validate(String, Class)
+	 */
+	public ValidationError validate(final String string) throws IOException {
+		final ValidationError error = CheckJson.sizeError(options, string.length());
+		if (error != null)
+			return error;
+		try (final JsonParser parser = factory.createParser(string)) {
+			return CheckJson.validateInternal(parser, rootType, options);
+		}
+	}
+
+	public ValidationError validate(final InputStream stream) throws IOException {
+		final JsonParser parser;
+		try {
+			parser = CheckJson.createParser(factory, options, stream);
+		} catch (final ValidationError e) {
+			return e;
+		}
+		try {
+			return CheckJson.validateInternal(parser, rootType, options);
+		} finally {
+			parser.close();
+		}
+	}
+
+	public ValidationError validate(final byte[] data, final int offset, final int length) throws IOException {
+		final ValidationError error = CheckJson.sizeError(options, length);
+		if (error != null)
+			return error;
+		try (final JsonParser parser = factory.createParser(data, offset, length)) {
+			return CheckJson.validateInternal(parser, rootType, options);
+		}
+	}
+
+	public ValidationError validate(final ByteBuffer data) throws IOException {
+		final ValidationError error = CheckJson.sizeError(options, data.remaining());
+		if (error != null)
+			return error;
+		try (final JsonParser parser = CheckJson.createParser(factory, data)) {
+			return CheckJson.validateInternal(parser, rootType, options);
+		}
+	}
+
+	/**
+	 * Deserialize and validate a top level array or newline separated sequence of objects one record at a time.
+	 *
+	 * @param stream
+	 * @return A sequential stream of deserialized objects
+	 * @throws IOException
+	 * @see CheckJson#stream(InputStream, Class)
+	 */
+	public Stream<T> stream(final InputStream stream) throws IOException {
+		return CheckJson.streamInternal(factory.createParser(stream), rootType, options);
+	}
+
+	/**
+	 * Start reading a document from input pushed in chunks, for non-blocking servers.
+	 *
+	 * @return A new feeder for a single document
+	 * @throws IOException
+	 */
+	public CheckJsonFeeder<T> feeder() throws IOException {
+		return new CheckJsonFeeder<>(factory.createNonBlockingByteArrayParser(), rootType, options);
+	}
+
+	/**
+	 * Deserialize and validate a newline delimited JSON file in parallel.  The file is memory mapped and split into
+	 * chunks at line boundaries which are read concurrently on the common fork join pool.  Use
+	 * {@link Stream#forEachOrdered} to get records in file order or {@link Stream#forEach} to receive them as soon as
+	 * they're ready.  Close the stream to release the file.
+	 * <p>
+	 * The error consumer and the reader's listener are called concurrently from the pool's threads, so they must be
+	 * thread safe.
+	 *
+	 * @param file
+	 * @param errors Receives an error for each invalid record, which is then skipped up to the next line.  If null an
+	 *               error for an invalid record is thrown from the stream's terminal operation.
+	 * @return A parallel stream of deserialized objects
+	 * @throws IOException
+	 */
+	public Stream<T> readLinesParallel(final java.nio.file.Path file, final Consumer<ValidationError> errors)
+			throws IOException {
+		return ParallelLines.stream(factory, rootType, options, file, ParallelLines.CHUNK_SIZE, errors);
+	}
+
+	/**
+	 * Same as {@link #readLinesParallel(java.nio.file.Path, Consumer)} but fails on an invalid record.  With several
+	 * invalid records which one is reported depends on thread timing.
+	 *
+	 * @param file
+	 * @return A parallel stream of deserialized objects
+	 * @throws IOException
+	 */
+	public Stream<T> readLinesParallel(final java.nio.file.Path file) throws IOException {
+		return readLinesParallel(file, null);
+	}
+}
@@ -0,0 +1,33 @@
+package com.zarbosoft.checkjson;
+
+/**
+ * Measurements of a single document, see {@link CheckJsonListener}.  For rejected documents these cover the input up
+ * to the start of the token where it was rejected.
+ */
+public class DocumentStats {
+	/**
+	 * Input consumed - characters rather than bytes when reading from a String
+	 */
+	public final long bytes;
+	public final long tokens;
+	/**
+	 * Time from the first token to completion.  For feeders this includes time spent waiting for input.
+	 */
+	public final long nanos;
+	/**
+	 * The deepest nesting of objects and arrays, where the root object is 1
+	 */
+	public final int maxDepth;
+
+	public DocumentStats(final long bytes, final long tokens, final long nanos, final int maxDepth) {
+		this.bytes = bytes;
+		this.tokens = tokens;
+		this.nanos = nanos;
+		this.maxDepth = maxDepth;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s bytes, %s tokens, %s ns, depth %s", bytes, tokens, nanos, maxDepth);
+	}
+}
@@ -0,0 +1,99 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.zarbosoft.checkjson.internal.Document;
+import com.zarbosoft.checkjson.internal.InternalValidationError;
+import com.zarbosoft.checkjson.internal.Options;
+import com.zarbosoft.checkjson.internal.Path;
+import com.zarbosoft.checkjson.internal.TypeInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A field type for large objects that are often not needed.  When the document is read the object's JSON is only
+ * checked for syntax and recorded; it's bound and validated the first time {@link #get()} is called.
+ * <p>
+ * Errors in the object are only reported by {@link #get()}, with paths from the root of the original document.
+ */
+public class Lazy<T> {
+	private static final JsonFactory factory = new JsonFactory();
+
+	private TypeInfo type;
+	private Path path;
+	private Options options;
+
+	/**
+	 * The recorded JSON as a String or UTF-8 bytes, null once bound
+	 */
+	private Object source;
+	private T value;
+	private ValidationError error;
+
+	/**
+	 * Used by the reader.
+	 *
+	 * @param type    The type to bind to
+	 * @param path    The location of the object, inside it
+	 * @param options
+	 * @param source  The object's JSON, a String or UTF-8 bytes
+	 */
+	public Lazy(final TypeInfo type, final Path path, final Options options, final Object source) {
+		this.type = type;
+		this.path = path;
+		this.options = options;
+		this.source = source;
+	}
+
+	private Lazy(final T value) {
+		this.value = value;
+	}
+
+	/**
+	 * @param value
+	 * @return A Lazy that's already bound, for writing
+	 */
+	public static <T> Lazy<T> of(final T value) {
+		if (value == null)
+			throw new AssertionError("Lazy value is null");
+		return new Lazy<>(value);
+	}
+
+	/**
+	 * Bind the object if this is the first call.
+	 *
+	 * @return The object
+	 * @throws ValidationError If the object doesn't match the type - the same error is thrown on every call
+	 */
+	public synchronized T get() {
+		if (source != null)
+			bind();
+		if (error != null)
+			throw error;
+		return value;
+	}
+
+	private void bind() {
+		final Document document = new Document(type, path, options);
+		try (
+				final JsonParser parser = source instanceof String ?
+						factory.createParser((String) source) :
+						factory.createParser((byte[]) source)
+		) {
+			document.drive(parser, parser.nextToken());
+			value = (T) document.result();
+		} catch (final JsonParseException e) {
+			error = CheckJson.parseError(e, document);
+		} catch (final InternalValidationError e) {
+			error = document.error(e);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		type = null;
+		path = null;
+		options = null;
+		source = null;
+	}
+}
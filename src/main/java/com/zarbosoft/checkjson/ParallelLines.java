@@ -0,0 +1,204 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.zarbosoft.checkjson.internal.ByteBufferInputStream;
+import com.zarbosoft.checkjson.internal.Document;
+import com.zarbosoft.checkjson.internal.InternalValidationError;
+import com.zarbosoft.checkjson.internal.Options;
+import com.zarbosoft.checkjson.internal.Path;
+import com.zarbosoft.checkjson.internal.TypeInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Reads newline delimited JSON in parallel.  The file is split into chunks at newline boundaries, each chunk is
+ * memory mapped and read with its own parser on the fork join pool backing the returned parallel stream.
+ * <p>
+ * Errors give the absolute byte offset of the record rather than the parser's line and column, which would be
+ * relative to the chunk.
+ */
+class ParallelLines {
+	static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+	private static class Chunk {
+		final long start;
+		final long end;
+
+		private Chunk(final long start, final long end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	static <T> Stream<T> stream(
+			final JsonFactory factory,
+			final TypeInfo rootType,
+			final Options options,
+			final java.nio.file.Path file,
+			final int chunkSize,
+			final Consumer<ValidationError> errors
+	) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		final List<Chunk> chunks;
+		try {
+			chunks = split(channel, chunkSize);
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		return chunks
+				.parallelStream()
+				.flatMap(chunk -> ParallelLines.<T>read(factory, rootType, options, channel, chunk, errors).stream())
+				.onClose(() -> {
+					try {
+						channel.close();
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	private static List<Chunk> split(final FileChannel channel, final int chunkSize) throws IOException {
+		final List<Chunk> chunks = new ArrayList<>();
+		final long size = channel.size();
+		final ByteBuffer scan = ByteBuffer.allocate(4096);
+		long start = 0;
+		while (start < size) {
+			long end = Math.min(start + chunkSize, size);
+			scanning:
+			while (end < size) {
+				scan.clear();
+				final int read = channel.read(scan, end);
+				if (read < 0) {
+					end = size;
+					break;
+				}
+				for (int i = 0; i < read; ++i) {
+					if (scan.get(i) == '\n') {
+						end += i + 1;
+						break scanning;
+					}
+				}
+				end += read;
+			}
+			if (end - start > Integer.MAX_VALUE)
+				throw new IOException(String.format("Line starting near byte %s is too long to map", start));
+			chunks.add(new Chunk(start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	private static <T> List<T> read(
+			final JsonFactory factory,
+			final TypeInfo rootType,
+			final Options options,
+			final FileChannel channel,
+			final Chunk chunk,
+			final Consumer<ValidationError> errors
+	) {
+		final List<T> out = new ArrayList<>();
+		try {
+			final MappedByteBuffer buffer =
+					channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+			int offset = 0;
+			while (offset < buffer.limit()) {
+				buffer.position(offset);
+				try (final JsonParser stream = factory.createParser(new ByteBufferInputStream(buffer))) {
+					offset = read(rootType, options, chunk, buffer, offset, stream, out, errors);
+				}
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out;
+	}
+
+	/**
+	 * Read records until the end of the chunk or the first invalid record.
+	 *
+	 * @return The chunk offset to resume reading from
+	 */
+	private static <T> int read(
+			final TypeInfo rootType,
+			final Options options,
+			final Chunk chunk,
+			final ByteBuffer buffer,
+			final int offset,
+			final JsonParser stream,
+			final List<T> out,
+			final Consumer<ValidationError> errors
+	) throws IOException {
+		while (true) {
+			final JsonToken first;
+			try {
+				first = stream.nextToken();
+			} catch (final JsonParseException e) {
+				final int start = offset + (int) stream.getTokenLocation().getByteOffset();
+				final Path path = new Path("byte", chunk.start + start);
+				final ValidationError error = CheckJson.parseError(e, path, null, options);
+				// The record's position isn't known until its first token, so a record rejected there is reported as
+				// an empty document
+				final Document document = new Document(rootType, path, options);
+				document.begin(stream.getTokenLocation());
+				document.end(stream, error);
+				return resync(buffer, start, error, errors);
+			}
+			if (first == null)
+				return Integer.MAX_VALUE;
+			final int start = offset + (int) stream.getTokenLocation().getByteOffset();
+			final long position = chunk.start + start;
+			final Document document = new Document(rootType, new Path("byte", position), options);
+			document.begin(stream.getTokenLocation());
+			final ValidationError error;
+			try {
+				document.drive(stream, first);
+				document.checkBytes(stream);
+				document.end(stream, null);
+				out.add((T) document.result());
+				continue;
+			} catch (final JsonParseException e) {
+				error = CheckJson.parseError(e, document.path, null, options);
+			} catch (final InternalValidationError e) {
+				error = document.error(e);
+			}
+			document.end(stream, error);
+			return resync(buffer, start, error, errors);
+		}
+	}
+
+	/**
+	 * Report the error and skip to the line after the invalid record.  The scan starts from the record rather than
+	 * the parser's position, which may already be past the end of the line - for instance if the record was cut off
+	 * before a value.
+	 *
+	 * @param start The chunk offset of the invalid record
+	 * @return The chunk offset of the next line
+	 */
+	private static int resync(
+			final ByteBuffer buffer, final int start, final ValidationError error, final Consumer<ValidationError> errors
+	) {
+		if (errors == null)
+			throw error;
+		errors.accept(error);
+		int at = start;
+		while (at < buffer.limit()) {
+			if (buffer.get(at) == '\n')
+				return at + 1;
+			at += 1;
+		}
+		return Integer.MAX_VALUE;
+	}
+}
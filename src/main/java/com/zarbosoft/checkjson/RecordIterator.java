@@ -0,0 +1,114 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.zarbosoft.checkjson.internal.Document;
+import com.zarbosoft.checkjson.internal.InternalValidationError;
+import com.zarbosoft.checkjson.internal.Options;
+import com.zarbosoft.checkjson.internal.Path;
+import com.zarbosoft.checkjson.internal.TypeInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads root objects one at a time from either a top level array or a sequence of whitespace/newline separated
+ * objects.  Only the current record is held in memory.
+ *
+ * @param <T>
+ */
+class RecordIterator<T> implements Iterator<T> {
+	private final JsonParser stream;
+	private final TypeInfo rootType;
+	private final Options options;
+	private boolean started = false;
+	private boolean array = false;
+	private boolean done = false;
+	private long index = 0;
+	private T next;
+
+	RecordIterator(final JsonParser stream, final TypeInfo rootType, final Options options) {
+		this.stream = stream;
+		this.rootType = rootType;
+		this.options = options;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !done)
+			advance();
+		return next != null;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext())
+			throw new NoSuchElementException();
+		final T out = next;
+		next = null;
+		return out;
+	}
+
+	private void advance() {
+		final Path path = new Path(index);
+		// Started before the record's first token so errors between records reach the listener too
+		final Document document = new Document(rootType, path, options);
+		document.begin(stream.getCurrentLocation());
+		try {
+			JsonToken token = stream.nextToken();
+			if (!started) {
+				started = true;
+				if (token == JsonToken.START_ARRAY) {
+					array = true;
+					token = stream.nextToken();
+				}
+			}
+			if (array && token == JsonToken.END_ARRAY) {
+				if (stream.nextToken() != null)
+					throw new InternalValidationError(ValidationError.Code.SYNTAX, "Unexpected data after root array");
+				done = true;
+				stream.close();
+				return;
+			}
+			if (token == null) {
+				if (array)
+					throw new InternalValidationError(ValidationError.Code.SYNTAX, "Stream ended too early");
+				done = true;
+				stream.close();
+				return;
+			}
+			// Measure the record itself, not the separator before it
+			document.begin(stream.getTokenLocation());
+			document.drive(stream, token);
+			document.checkBytes(stream);
+			document.end(stream, null);
+			next = (T) document.result();
+			index += 1;
+		} catch (final JsonParseException e) {
+			throw fail(document, CheckJson.parseError(e, path, e.getLocation(), options));
+		} catch (final InternalValidationError e) {
+			throw fail(document, e.finish(path, options.stackTraces));
+		} catch (final IOException e) {
+			abort();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private ValidationError fail(final Document document, final ValidationError error) {
+		document.end(stream, error);
+		abort();
+		return error;
+	}
+
+	private void abort() {
+		done = true;
+		try {
+			stream.close();
+		} catch (final IOException e) {
+			// Already failing
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.zarbosoft.checkjson;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a binary value to a new temporary file.  The caller is responsible for deleting the file.
+ */
+public class TempFileSink implements BinarySink {
+	private Path path;
+	private long length;
+
+	@Override
+	public OutputStream open() throws IOException {
+		path = Files.createTempFile("checkjson", ".bin");
+		return new FilterOutputStream(Files.newOutputStream(path)) {
+			@Override
+			public void write(final int b) throws IOException {
+				out.write(b);
+				length += 1;
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) throws IOException {
+				out.write(b, off, len);
+				length += len;
+			}
+		};
+	}
+
+	/**
+	 * @return The file holding the value, or null if the value wasn't read
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return The number of decoded bytes
+	 */
+	public long getLength() {
+		return length;
+	}
+}
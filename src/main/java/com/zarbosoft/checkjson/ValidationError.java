@@ -2,11 +2,110 @@ package com.zarbosoft.checkjson;
 
 import com.zarbosoft.checkjson.internal.Path;
 
+import java.util.function.Supplier;
+
 /**
- * The message contains the violation description and location of the exception in the JSON.
+ * The message contains the violation description and location of the exception in the JSON.  The message is only
+ * formatted when requested; use the code, field and path to classify errors without formatting.
  */
 public class ValidationError extends RuntimeException {
+	public enum Code {
+		/**
+		 * Malformed JSON, or the document ended early or had trailing data
+		 */
+		SYNTAX,
+		/**
+		 * A JSON value had the wrong type for the field, was null when not nullable, or named an unknown subtype
+		 */
+		TYPE_MISMATCH,
+		UNKNOWN_FIELD,
+		MISSING_FIELD,
+		/**
+		 * A number was outside the Valid min/max
+		 */
+		RANGE,
+		/**
+		 * A string or binary value was outside the Valid min/max length
+		 */
+		LENGTH,
+		/**
+		 * An array had too few or too many elements
+		 */
+		SIZE,
+		PATTERN,
+		/**
+		 * A value couldn't be converted, for instance a number too large for the field or invalid base64
+		 */
+		FORMAT,
+		/**
+		 * The document exceeded one of the reader's depth, token or byte limits
+		 */
+		LIMIT
+	}
+
+	private final Code code;
+	private final String field;
+	private final Path path;
+	private final Supplier<String> description;
+	private String message;
+
 	public ValidationError(final String message, final Path path, final Exception e) {
-		super(String.format("%s\nat %s", message, path), e);
+		this(Code.SYNTAX, path.lastKey(), path, () -> message, e, true);
+	}
+
+	/**
+	 * @param code
+	 * @param field       The offending field or null
+	 * @param path        Copied, so may be reused after this
+	 * @param description Produces the violation description on demand
+	 * @param cause
+	 * @param stackTrace  Whether to capture the stack trace
+	 */
+	public ValidationError(
+			final Code code,
+			final String field,
+			final Path path,
+			final Supplier<String> description,
+			final Throwable cause,
+			final boolean stackTrace
+	) {
+		super(null, cause, true, stackTrace);
+		this.code = code;
+		this.field = field;
+		this.path = path.copy();
+		this.description = description;
+	}
+
+	public Code getCode() {
+		return code;
+	}
+
+	/**
+	 * @return The JSON name of the field being read when the error occurred (for missing fields, the first missing
+	 * field) or null if the error wasn't in an object
+	 */
+	public String getField() {
+		return field;
+	}
+
+	/**
+	 * @return The location of the error in the document, like $.a[4].b
+	 */
+	public String getPath() {
+		return path.toString();
+	}
+
+	/**
+	 * @return The location of the error without array indices or record position, like $.a[].b
+	 */
+	public String getPathPattern() {
+		return path.pattern();
+	}
+
+	@Override
+	public String getMessage() {
+		if (message == null)
+			message = String.format("%s\nat %s", description.get(), path);
+		return message;
 	}
 }
@@ -0,0 +1,31 @@
+package com.zarbosoft.checkjson.internal;
+
+/**
+ * Reads and writes a single field of a bound object.  The primitive setters avoid boxing when the field is the
+ * matching primitive type and box otherwise.
+ */
+public abstract class Accessor {
+	public abstract Object get(Object object);
+
+	public abstract void set(Object object, Object value);
+
+	public void setInt(final Object object, final int value) {
+		set(object, value);
+	}
+
+	public void setLong(final Object object, final long value) {
+		set(object, value);
+	}
+
+	public void setFloat(final Object object, final float value) {
+		set(object, value);
+	}
+
+	public void setDouble(final Object object, final double value) {
+		set(object, value);
+	}
+
+	public void setBoolean(final Object object, final boolean value) {
+		set(object, value);
+	}
+}
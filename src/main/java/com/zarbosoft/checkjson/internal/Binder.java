@@ -0,0 +1,77 @@
+package com.zarbosoft.checkjson.internal;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+/**
+ * Binding plan for a class generated at build time by the checkjson-processor annotation processor.  Binders are
+ * registered as services and used instead of reflection when present.
+ */
+public abstract class Binder {
+	/**
+	 * The binder class names registered in each loader, by bound class name.  Only names are kept so the values don't
+	 * reference the loader and it can still be collected.
+	 */
+	private static final Map<ClassLoader, Map<String, String>> registered = new WeakHashMap<>();
+
+	public abstract Class<?> type();
+
+	/**
+	 * @return A new instance of the type
+	 * @throws AssertionError If the type has no public no-argument constructor
+	 */
+	public abstract Object newInstance();
+
+	/**
+	 * @return Json names, in declaration order
+	 */
+	public abstract String[] names();
+
+	/**
+	 * @return Fields matching {@link #names()}
+	 */
+	public abstract TypeInfo[] fields();
+
+	/**
+	 * @param type
+	 * @return The generated binder for the type, or null if there is none
+	 */
+	static Binder get(final Class<?> type) {
+		final ClassLoader loader = type.getClassLoader();
+		if (loader == null)
+			return null;
+		final String name;
+		synchronized (registered) {
+			name = registered.computeIfAbsent(loader, Binder::scan).get(type.getName());
+		}
+		if (name == null)
+			return null;
+		try {
+			final Binder binder = (Binder) Class.forName(name, true, loader).getConstructor().newInstance();
+			return binder.type() == type ? binder : null;
+		} catch (final ReflectiveOperationException | LinkageError | ClassCastException e) {
+			// Stale registration, use reflection
+			return null;
+		}
+	}
+
+	private static Map<String, String> scan(final ClassLoader loader) {
+		final Map<String, String> out = new HashMap<>();
+		final Iterator<Binder> iterator = ServiceLoader.load(Binder.class, loader).iterator();
+		while (true) {
+			try {
+				if (!iterator.hasNext())
+					break;
+				final Binder binder = iterator.next();
+				out.put(binder.type().getName(), binder.getClass().getName());
+			} catch (final ServiceConfigurationError | LinkageError e) {
+				// Stale registration (class removed or recompiled without the processor), use reflection
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,264 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable binding plan for a class, built once per class per JVM and shared between reads.
+ */
+public class ClassInfo {
+	private static final ClassValue<ClassInfo> cache = new ClassValue<ClassInfo>() {
+		@Override
+		protected ClassInfo computeValue(final Class<?> type) {
+			return new ClassInfo(type);
+		}
+	};
+
+	public final Class<?> type;
+	private final Binder binder;
+	private final MethodHandle constructor;
+
+	/**
+	 * Json names and fields by index, in declaration order.
+	 */
+	public final String[] names;
+	public final TypeInfo[] fields;
+
+	/**
+	 * Names with their encoded forms cached, for matching directly against parser input.
+	 */
+	final SerializableString[] serializedNames;
+	private final Map<String, Integer> indices;
+
+	/**
+	 * Bitset of the indices of required fields, 64 per word.
+	 */
+	final long[] required;
+
+	/**
+	 * For abstract types with JsonTypeInfo, the name of the property holding the subtype id, otherwise null.
+	 */
+	public final String discriminator;
+	final SerializableString serializedDiscriminator;
+
+	/**
+	 * Subtypes by id, if there's a discriminator.
+	 */
+	final Map<String, TypeInfo> subtypes;
+
+	/**
+	 * Subtype ids by class, for writing
+	 */
+	final Map<Class<?>, String> ids;
+
+	/**
+	 * From JsonIgnoreProperties - skip all undeclared fields, or just the named ones
+	 */
+	private final boolean ignoreUnknown;
+	private final Set<String> ignored;
+
+	private volatile Object defaults;
+
+	private ClassInfo(final Class<?> type) {
+		this.type = type;
+		this.binder = Binder.get(type);
+		if (binder != null) {
+			this.constructor = null;
+			this.names = binder.names();
+			this.fields = binder.fields();
+		} else {
+			MethodHandle constructor;
+			try {
+				constructor = MethodHandles
+						.publicLookup()
+						.unreflectConstructor(type.getConstructor())
+						.asType(MethodType.methodType(Object.class));
+			} catch (final ReflectiveOperationException e) {
+				constructor = null;
+			}
+			this.constructor = constructor;
+			final Map<String, TypeInfo> fields = new LinkedHashMap<>();
+			for (final Field field : type.getFields()) {
+				final JsonProperty annotation = field.getAnnotation(JsonProperty.class);
+				if (annotation == null)
+					continue;
+				final String name;
+				if (annotation.value() != null && !annotation.value().isEmpty())
+					name = annotation.value();
+				else
+					name = field.getName();
+				if (fields.put(name, new TypeInfo(field)) != null)
+					throw new IllegalStateException(String.format("Duplicate key %s", name));
+			}
+			this.names = fields.keySet().toArray(new String[0]);
+			this.fields = fields.values().toArray(new TypeInfo[0]);
+		}
+		final Map<String, Integer> indices = new HashMap<>();
+		this.serializedNames = new SerializableString[this.fields.length];
+		this.required = new long[words(this.fields.length)];
+		for (int i = 0; i < this.fields.length; ++i) {
+			indices.put(names[i], i);
+			serializedNames[i] = new SerializedString(names[i]);
+			if (!this.fields[i].optional())
+				required[i >>> 6] |= 1L << i;
+		}
+		this.indices = indices;
+		final JsonIgnoreProperties ignore = type.getAnnotation(JsonIgnoreProperties.class);
+		if (ignore == null) {
+			this.ignoreUnknown = false;
+			this.ignored = Collections.emptySet();
+		} else {
+			this.ignoreUnknown = ignore.ignoreUnknown();
+			this.ignored = new HashSet<>(Arrays.asList(ignore.value()));
+		}
+		final JsonTypeInfo typeInfo = type.getAnnotation(JsonTypeInfo.class);
+		if (typeInfo == null) {
+			this.discriminator = null;
+			this.serializedDiscriminator = null;
+			this.subtypes = null;
+			this.ids = null;
+		} else {
+			if (typeInfo.use() != JsonTypeInfo.Id.NAME ||
+					(typeInfo.include() != JsonTypeInfo.As.PROPERTY &&
+							typeInfo.include() != JsonTypeInfo.As.EXISTING_PROPERTY))
+				throw new IllegalStateException(String.format("%s: only JsonTypeInfo use NAME with include PROPERTY is supported",
+						type
+				));
+			this.discriminator =
+					typeInfo.property().isEmpty() ? typeInfo.use().getDefaultPropertyName() : typeInfo.property();
+			this.serializedDiscriminator = new SerializedString(discriminator);
+			final Map<String, TypeInfo> subtypes = new HashMap<>();
+			final Map<Class<?>, String> ids = new HashMap<>();
+			final JsonSubTypes subtypesAnnotation = type.getAnnotation(JsonSubTypes.class);
+			if (subtypesAnnotation != null)
+				for (final JsonSubTypes.Type subtype : subtypesAnnotation.value()) {
+					if (!type.isAssignableFrom(subtype.value()) || subtype.value() == type)
+						throw new IllegalStateException(String.format("%s is not a subtype of %s", subtype.value(), type));
+					if (subtypes.put(id(subtype), new TypeInfo(subtype.value())) != null)
+						throw new IllegalStateException(String.format("Duplicate subtype id %s in %s", id(subtype), type));
+					ids.put(subtype.value(), id(subtype));
+				}
+			this.subtypes = subtypes;
+			this.ids = ids;
+		}
+	}
+
+	/**
+	 * @return The subtype's id, chosen the same way as Jackson
+	 */
+	private static String id(final JsonSubTypes.Type subtype) {
+		if (!subtype.name().isEmpty())
+			return subtype.name();
+		final JsonTypeName name = subtype.value().getAnnotation(JsonTypeName.class);
+		if (name != null && !name.value().isEmpty())
+			return name.value();
+		final String className = subtype.value().getName();
+		return className.substring(className.lastIndexOf('.') + 1);
+	}
+
+	/**
+	 * @return true if objects are bound to a subtype chosen by the discriminator
+	 */
+	public boolean isPolymorphic() {
+		return discriminator != null;
+	}
+
+	static int words(final int bits) {
+		return Math.max(1, (bits + 63) >>> 6);
+	}
+
+	/**
+	 * @param name
+	 * @return The index of the field with the Json name, or -1 if there is none
+	 */
+	public int index(final String name) {
+		final Integer index = indices.get(name);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @param name A name that isn't a field
+	 * @return true if the class ignores the field rather than rejecting it
+	 */
+	boolean ignored(final String name) {
+		return ignoreUnknown || ignored.contains(name);
+	}
+
+	public static ClassInfo get(final Class<?> type) {
+		return cache.get(type);
+	}
+
+	/**
+	 * Build the plans for a type and every object type reachable from it, so that annotation errors surface
+	 * immediately rather than on the first document that uses them.
+	 *
+	 * @param root
+	 */
+	public static void prepare(final TypeInfo root) {
+		prepare(root, new HashSet<>());
+	}
+
+	private static void prepare(final TypeInfo type, final Set<Class<?>> seen) {
+		if (type.parameters != null)
+			for (final TypeInfo parameter : type.parameters)
+				prepare(parameter, seen);
+		if (!type.isObject() || !seen.add(type.klass()))
+			return;
+		final ClassInfo info = get(type.klass());
+		for (final TypeInfo field : info.fields)
+			prepare(field, seen);
+		if (info.isPolymorphic())
+			for (final TypeInfo subtype : info.subtypes.values())
+				prepare(subtype, seen);
+	}
+
+	/**
+	 * @param accessor One of this class's fields
+	 * @return The value the field has in a new instance.  Immutable values are read from an instance created once
+	 * and shared, others from a new instance.
+	 */
+	Object defaultValue(final Accessor accessor) {
+		Object defaults = this.defaults;
+		if (defaults == null)
+			this.defaults = defaults = newInstance();
+		final Object value = accessor.get(defaults);
+		if (value == null ||
+				value instanceof String ||
+				value instanceof Integer ||
+				value instanceof Long ||
+				value instanceof Float ||
+				value instanceof Double ||
+				value instanceof Boolean)
+			return value;
+		return accessor.get(newInstance());
+	}
+
+	public Object newInstance() {
+		if (binder != null)
+			return binder.newInstance();
+		try {
+			if (constructor == null)
+				throw new NoSuchMethodException(String.format("%s.<init>()", type.getName()));
+			return (Object) constructor.invokeExact();
+		} catch (final Throwable e) {
+			throw new AssertionError(String.format("Unable to instantiate class %s", type), e);
+		}
+	}
+}
@@ -0,0 +1,476 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.zarbosoft.checkjson.DocumentStats;
+import com.zarbosoft.checkjson.Lazy;
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Binding state for a single root object.  Tokens are pushed in one at a time so the same document can be driven by
+ * a blocking loop, a record iterator or a non-blocking feeder.
+ */
+public class Document {
+	static final JsonFactory factory = new JsonFactory();
+
+	final Deque<State> stack = new ArrayDeque<>();
+	public final Path path;
+
+	/**
+	 * The path depth once the root object ends
+	 */
+	private final int rootDepth;
+	private final TypeInfo rootType;
+
+	/**
+	 * If false only validate - no objects, collections or value strings are created and the result is null.
+	 */
+	final boolean bind;
+
+	/**
+	 * If true refill existing objects and collections where possible instead of creating new ones, starting with
+	 * {@link #into} at the root.
+	 */
+	final boolean reuse;
+	final Object into;
+	public final Options options;
+	private boolean started = false;
+	/**
+	 * Set once the root object is created
+	 */
+	Object result;
+
+	/**
+	 * Set while the current token is a field name matched by prediction, see {@link #next(JsonParser)}
+	 */
+	private SerializableString predicted;
+
+	/**
+	 * Set by the current state to discard the value of the field just read, see {@link #skip(JsonParser)}
+	 */
+	boolean skip;
+
+	/**
+	 * Set by the current state to record the object just started for a {@link Lazy}, see
+	 * {@link #capture(JsonParser)}
+	 */
+	StateValueBase lazy;
+
+	/**
+	 * Where the parser's input starts in its source array, or -1 if unknown
+	 */
+	private int sourceOffset = -1;
+
+	/**
+	 * Only tracked with a listener or limits
+	 */
+	private long tokens;
+	private long startNanos;
+	private long startOffset;
+
+	/**
+	 * Where the root object ended, or -1 if it hasn't.  Jackson's current location is inflated once the parser has
+	 * seen the end of its input, so it's recorded before anything past the document is read.
+	 */
+	private long endOffset = -1;
+
+	/**
+	 * Where the chunk being fed starts in its array.  Jackson 2.9's non-blocking parser reports offsets including it.
+	 */
+	private int chunkStart;
+
+	public Document(final TypeInfo rootType, final Options options) {
+		this(rootType, new Path(), true, options);
+	}
+
+	public Document(final TypeInfo rootType, final Path path, final Options options) {
+		this(rootType, path, true, options);
+	}
+
+	public Document(final TypeInfo rootType, final Path path, final boolean bind, final Options options) {
+		this.rootType = rootType;
+		this.path = path;
+		this.rootDepth = path.depth() - 1;
+		this.bind = bind;
+		this.reuse = false;
+		this.into = null;
+		this.options = options;
+	}
+
+	/**
+	 * Bind into an existing root object.
+	 *
+	 * @param rootType
+	 * @param into     Reused if it's exactly the class the document binds to, see {@link StateObject}
+	 * @param options
+	 */
+	public Document(final TypeInfo rootType, final Object into, final Options options) {
+		this.rootType = rootType;
+		this.path = new Path();
+		this.rootDepth = 0;
+		this.bind = true;
+		this.reuse = true;
+		this.into = into;
+		this.options = options;
+	}
+
+	public ValidationError error(final InternalValidationError e) {
+		return e.finish(path, options.stackTraces);
+	}
+
+	public Object result() {
+		return result;
+	}
+
+	/**
+	 * Lets {@link Lazy} fields copy their input directly from the parser's source when it's a byte[].  Jackson reports
+	 * offsets relative to the start of the parsed range, so the start is needed to find them in the array.
+	 *
+	 * @param offset The index in the source array where the parser's input starts, or -1 if unknown
+	 */
+	public void source(final int offset) {
+		this.sourceOffset = offset;
+	}
+
+	/**
+	 * Set before feeding each chunk to a non-blocking parser.
+	 *
+	 * @param start Where the chunk starts in the array passed to the parser
+	 */
+	public void chunk(final int start) {
+		this.chunkStart = start;
+	}
+
+	/**
+	 * Start measuring, if there's a listener.
+	 *
+	 * @param location Where the document starts in the input
+	 */
+	public void begin(final JsonLocation location) {
+		if (options.listener == null && options.maxBytes == Long.MAX_VALUE)
+			return;
+		startNanos = System.nanoTime();
+		startOffset = offset(location);
+	}
+
+	/**
+	 * Feed tokens from a blocking parser until the root object is complete.
+	 *
+	 * @param stream
+	 * @param first  The first token of the document
+	 * @throws IOException
+	 */
+	public void drive(final JsonParser stream, final JsonToken first) throws IOException {
+		if (!options.countTokens()) {
+			boolean complete = event(stream, first);
+			while (!complete)
+				complete = event(stream, next(stream));
+		} else {
+			count();
+			boolean complete = event(stream, first);
+			while (!complete) {
+				count();
+				complete = event(stream, next(stream));
+			}
+		}
+		complete(stream);
+	}
+
+	private void complete(final JsonParser stream) {
+		if (options.listener != null)
+			endOffset = offset(stream.getCurrentLocation()) - chunkStart;
+	}
+
+	private void count() {
+		tokens += 1;
+		if (tokens > options.maxTokens)
+			throw new InternalValidationError(ValidationError.Code.LIMIT,
+					"Document has more than the limit of %s tokens",
+					options.maxTokens
+			);
+	}
+
+	/**
+	 * Check the byte limit for a document read from a larger input, once it's complete.  Single document inputs are
+	 * checked up front or as they're read instead.
+	 *
+	 * @param stream
+	 */
+	public void checkBytes(final JsonParser stream) {
+		if (options.maxBytes == Long.MAX_VALUE)
+			return;
+		final long bytes = offset(stream.getCurrentLocation()) - startOffset;
+		if (bytes > options.maxBytes)
+			throw limitBytes(options.maxBytes);
+	}
+
+	public static InternalValidationError limitBytes(final long maxBytes) {
+		return new InternalValidationError(ValidationError.Code.LIMIT,
+				"Document is longer than the limit of %s bytes",
+				maxBytes
+		);
+	}
+
+	/**
+	 * Read the next token.  Inside objects fields usually arrive in declaration order, so have the parser compare the
+	 * next name against the expected one in its input buffer - on a match the name isn't decoded or looked up.
+	 */
+	private JsonToken next(final JsonParser stream) throws IOException {
+		final SerializableString expected = stack.getLast().predictField();
+		if (expected == null)
+			return stream.nextToken();
+		if (stream.nextFieldName(expected)) {
+			predicted = expected;
+			return JsonToken.FIELD_NAME;
+		}
+		return stream.getCurrentToken();
+	}
+
+	/**
+	 * Process one token from a non-blocking parser.
+	 *
+	 * @return true once the root object is complete
+	 * @throws IOException
+	 */
+	public boolean feed(final JsonParser stream, final JsonToken token) throws IOException {
+		final State top = stack.peekLast();
+		if (options.countTokens() && !(top instanceof StateSkip) && !(top instanceof StateLazy))
+			count();
+		final boolean complete = event(stream, token);
+		if (complete)
+			complete(stream);
+		return complete;
+	}
+
+	/**
+	 * Report the document to the listener, if there is one.
+	 *
+	 * @param stream
+	 * @param error  The rejection or null
+	 */
+	public void end(final JsonParser stream, final ValidationError error) {
+		if (options.listener == null)
+			return;
+		final long end = endOffset == -1 ? offset(stream.getTokenLocation()) - chunkStart : endOffset;
+		options.listener.document(rootType.klass(),
+				// Rejected before its first token the token location can still be the end of the previous record
+				new DocumentStats(Math.max(0, end - startOffset),
+						tokens,
+						System.nanoTime() - startNanos,
+						path.maxDepth()
+				),
+				error
+		);
+	}
+
+	/**
+	 * Discard the value of an ignored field.  Blocking parsers skip it in place without producing its tokens, and
+	 * non-blocking parsers pass its tokens to {@link StateSkip} directly - either way the skipped tokens aren't
+	 * tracked in the path or counted against the depth and token limits.
+	 */
+	private void skip(final JsonParser stream) throws IOException {
+		if (stream.canParseAsync()) {
+			stack.addLast(new StateSkip(this));
+			return;
+		}
+		if (stream.nextToken() == null)
+			throw new InternalValidationError(ValidationError.Code.SYNTAX, "Stream ended too early");
+		stream.skipChildren();
+	}
+
+	/**
+	 * Record the object just started as a {@link Lazy} without binding it.  Blocking parsers skip over it and slice its
+	 * input if it's in memory and they track offsets in its units, or copy its tokens otherwise; non-blocking parsers
+	 * pass its tokens to {@link StateLazy} directly.  Either way its contents aren't tracked in the path or counted
+	 * against the depth and token limits, which apply when it's bound.
+	 */
+	private void capture(final JsonParser stream) throws IOException {
+		final StateValueBase parent = lazy;
+		lazy = null;
+		final Path at = path.copy();
+		at.object();
+		if (stream.canParseAsync()) {
+			stack.addLast(new StateLazy(this, parent, at));
+			return;
+		}
+		if (!bind) {
+			stream.skipChildren();
+			parent.produce(null);
+			path.value();
+			return;
+		}
+		final TypeInfo type = parent.target().parameters[0];
+		final JsonLocation start = stream.getTokenLocation();
+		final Object source = start.getSourceRef();
+		final Object recorded;
+		if (source instanceof String) {
+			stream.skipChildren();
+			recorded = ((String) source).substring((int) start.getCharOffset(),
+					(int) stream.getCurrentLocation().getCharOffset()
+			);
+		} else if (source instanceof byte[] && sourceOffset != -1 && start.getByteOffset() != -1) {
+			// UTF-16 and UTF-32 input is decoded by a char based parser with no byte offsets; parsers report one kind
+			// of offset throughout so the end is known to be available too
+			stream.skipChildren();
+			recorded = Arrays.copyOfRange((byte[]) source,
+					sourceOffset + (int) start.getByteOffset(),
+					sourceOffset + (int) stream.getCurrentLocation().getByteOffset()
+			);
+		} else {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (final JsonGenerator generator = factory.createGenerator(out)) {
+				generator.copyCurrentStructure(stream);
+			}
+			recorded = out.toByteArray();
+		}
+		parent.produce(new Lazy<>(type, at, options, recorded));
+		path.value();
+	}
+
+	private void checkDepth() {
+		if (path.depth() >= options.maxDepth)
+			throw new InternalValidationError(ValidationError.Code.LIMIT,
+					"Nesting is deeper than the limit of %s",
+					options.maxDepth
+			);
+	}
+
+	private static long offset(final JsonLocation location) {
+		final long bytes = location.getByteOffset();
+		return bytes == -1 ? location.getCharOffset() : bytes;
+	}
+
+	/**
+	 * @param stream The parser positioned at token
+	 * @param token  The current token, null at the end of input
+	 * @return true once the root object is complete
+	 * @throws IOException
+	 */
+	public boolean event(final JsonParser stream, final JsonToken token) throws IOException {
+		if (!started) {
+			if (token != JsonToken.START_OBJECT) {
+				throw new InternalValidationError(ValidationError.Code.TYPE_MISMATCH, "Missing initial {");
+			}
+			final ClassInfo info = ClassInfo.get(rootType.klass());
+			if (info.isPolymorphic())
+				stack.addLast(new StatePolymorphic(this, info, null));
+			else {
+				final StateObject rootState = new StateObject(this, rootType, into);
+				stack.addLast(rootState);
+				result = rootState.object;
+			}
+			started = true;
+			return false;
+		}
+		if (token == null) {
+			throw new InternalValidationError(ValidationError.Code.SYNTAX, "Stream ended too early");
+		}
+		final State state = stack.getLast();
+		if (state instanceof StateSkip) {
+			((StateSkip) state).event(token);
+			return false;
+		}
+		if (state instanceof StateLazy) {
+			if (((StateLazy) state).event(stream, token))
+				path.value();
+			return false;
+		}
+		switch (token) {
+			case NOT_AVAILABLE:
+				// Only async mode
+				throw new AssertionError();
+			case START_OBJECT: {
+				checkDepth();
+				state.eventStartObject();
+				if (lazy != null) {
+					capture(stream);
+					break;
+				}
+				path.object();
+				break;
+			}
+			case END_OBJECT: {
+				path.pop();
+				state.eventEndObject();
+				if (path.depth() == rootDepth)
+					return true;
+				path.value();
+				break;
+			}
+			case START_ARRAY: {
+				checkDepth();
+				state.eventStartArray();
+				path.array();
+				break;
+			}
+			case END_ARRAY: {
+				path.pop();
+				state.eventEndArray();
+				path.value();
+				break;
+			}
+			case FIELD_NAME: {
+				if (predicted != null) {
+					path.key(predicted.getValue());
+					predicted = null;
+					state.eventPredictedField();
+				} else {
+					final String name = stream.getCurrentName();
+					path.key(name);
+					state.eventField(name);
+				}
+				if (skip) {
+					skip = false;
+					skip(stream);
+				}
+				break;
+			}
+			case VALUE_EMBEDDED_OBJECT:
+				// Supposedly shouldn't apply with normal options
+				throw new AssertionError();
+			case VALUE_STRING: {
+				state.eventString(stream);
+				path.value();
+				break;
+			}
+			case VALUE_NUMBER_INT: {
+				state.eventInt(stream);
+				path.value();
+				break;
+			}
+			case VALUE_NUMBER_FLOAT: {
+				state.eventFloat(stream);
+				path.value();
+				break;
+			}
+			case VALUE_TRUE: {
+				state.eventTrue();
+				path.value();
+				break;
+			}
+			case VALUE_FALSE: {
+				state.eventFalse();
+				path.value();
+				break;
+			}
+			case VALUE_NULL: {
+				state.eventNull();
+				path.value();
+				break;
+			}
+			default:
+				throw new AssertionError();
+		}
+		return false;
+	}
+}
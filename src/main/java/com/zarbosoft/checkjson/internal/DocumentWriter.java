@@ -0,0 +1,210 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.Lazy;
+import com.zarbosoft.checkjson.Valid;
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Writes an object graph field by field from the same ClassInfo plans used for reading, checking each value against
+ * the constraints the reader would apply so the output reads back without errors.
+ */
+public class DocumentWriter {
+	private final JsonGenerator generator;
+	public final Path path = new Path();
+
+	public DocumentWriter(final JsonGenerator generator) {
+		this.generator = generator;
+	}
+
+	/**
+	 * @param rootType The type the document will be read as
+	 * @param value
+	 * @throws IOException
+	 * @throws InternalValidationError
+	 */
+	public void write(final TypeInfo rootType, final Object value) throws IOException {
+		// The path starts inside the root object
+		writeObject(rootType, value);
+	}
+
+	private void writeObject(final TypeInfo type, final Object value) throws IOException {
+		ClassInfo info = ClassInfo.get(type.klass());
+		generator.writeStartObject();
+		String discriminator = null;
+		if (info.isPolymorphic()) {
+			final String id = info.ids.get(value.getClass());
+			if (id == null)
+				throw new AssertionError(String.format("%s is not listed in the JsonSubTypes of %s",
+						value.getClass(),
+						type.klass()
+				));
+			path.key(info.discriminator);
+			generator.writeFieldName(info.serializedDiscriminator);
+			generator.writeString(id);
+			discriminator = info.discriminator;
+			info = ClassInfo.get(value.getClass());
+		}
+		for (int i = 0; i < info.fields.length; ++i) {
+			if (info.names[i].equals(discriminator))
+				// Already written, the reader sets it from the discriminator
+				continue;
+			final TypeInfo field = info.fields[i];
+			final Object fieldValue = field.accessor.get(value);
+			path.key(info.names[i]);
+			if (fieldValue == null) {
+				if (nullable(field)) {
+					generator.writeFieldName(info.serializedNames[i]);
+					generator.writeNull();
+				} else if (!field.optional())
+					throw missing(field);
+				continue;
+			}
+			generator.writeFieldName(info.serializedNames[i]);
+			writeValue(field, fieldValue);
+		}
+		generator.writeEndObject();
+	}
+
+	private static boolean nullable(final TypeInfo target) {
+		return target.field != null && !target.klass().isPrimitive() && CheckJson.getValid(target).nullable();
+	}
+
+	private static InternalValidationError missing(final TypeInfo target) {
+		return new InternalValidationError(ValidationError.Code.TYPE_MISMATCH,
+				"Expected %s but got null",
+				target.friendlyType()
+		);
+	}
+
+	private void writeValue(final TypeInfo target, final Object value) throws IOException {
+		if (target.type == String.class) {
+			if (target.field != null)
+				CheckJson.validateString(target, (String) value);
+			generator.writeString((String) value);
+		} else if (target.type == Integer.class || target.type == int.class) {
+			final int v = (Integer) value;
+			if (target.field != null)
+				CheckJson.validateIntRange(CheckJson.getValid(target), v);
+			generator.writeNumber(v);
+		} else if (target.type == Long.class || target.type == long.class) {
+			final long v = (Long) value;
+			if (target.field != null)
+				CheckJson.validateIntRange(CheckJson.getValid(target), v);
+			generator.writeNumber(v);
+		} else if (target.type == Float.class || target.type == float.class) {
+			final float v = (Float) value;
+			checkFinite(v);
+			if (target.field != null)
+				CheckJson.validateFloatRange(CheckJson.getValid(target), v, true);
+			generator.writeNumber(v);
+		} else if (target.type == Double.class || target.type == double.class) {
+			final double v = (Double) value;
+			checkFinite(v);
+			if (target.field != null)
+				CheckJson.validateFloatRange(CheckJson.getValid(target), v, false);
+			generator.writeNumber(v);
+		} else if (target.type == Boolean.class || target.type == boolean.class) {
+			generator.writeBoolean((Boolean) value);
+		} else if (target.type == byte[].class) {
+			final byte[] v = (byte[]) value;
+			if (target.field != null) {
+				final Valid valid = CheckJson.getValid(target);
+				new LimitedOutputStream(null, valid).write(v, 0, v.length);
+				CheckJson.validateMinLength(valid, v.length);
+			}
+			generator.writeBinary(v);
+		} else if (target.isBinarySink()) {
+			throw new AssertionError(String.format("BinarySink field %s can't be written", target.field));
+		} else if (target.isPrimitiveArray()) {
+			writePrimitiveArray(target, value);
+		} else if (value instanceof Collection) {
+			writeCollection(target.parameters[0], (Collection<?>) value);
+		} else if (target.isLazy()) {
+			writeValue(target.parameters[0], ((Lazy<?>) value).get());
+		} else if (target.isObject()) {
+			path.object();
+			writeObject(target, value);
+			path.pop();
+		} else
+			throw new AssertionError(String.format("Unsupported type %s", target.type));
+	}
+
+	private static void checkFinite(final double v) {
+		if (Double.isNaN(v) || Double.isInfinite(v))
+			throw new InternalValidationError(ValidationError.Code.FORMAT, "Value %s can't be represented in JSON", v);
+	}
+
+	private void writeCollection(final TypeInfo element, final Collection<?> value) throws IOException {
+		path.array();
+		generator.writeStartArray();
+		int size = 0;
+		for (final Object v : value) {
+			if (v == null) {
+				if (!nullable(element)) {
+					if (element.optional())
+						// The reader skips optional nulls, so leave them out
+						continue;
+					throw missing(element);
+				}
+				generator.writeNull();
+			} else
+				writeValue(element, v);
+			path.value();
+			size += 1;
+		}
+		path.pop();
+		CheckJson.validateSize(element.klass().getAnnotation(Valid.class), size);
+		generator.writeEndArray();
+	}
+
+	private void writePrimitiveArray(final TypeInfo target, final Object value) throws IOException {
+		final TypeInfo element = target.parameters[0];
+		final Valid valid = element.field == null ? null : CheckJson.getValid(element);
+		path.array();
+		generator.writeStartArray();
+		if (value instanceof int[]) {
+			for (final int v : (int[]) value) {
+				if (valid != null)
+					CheckJson.validateIntRange(valid, v);
+				generator.writeNumber(v);
+				path.value();
+			}
+		} else if (value instanceof long[]) {
+			for (final long v : (long[]) value) {
+				if (valid != null)
+					CheckJson.validateIntRange(valid, v);
+				generator.writeNumber(v);
+				path.value();
+			}
+		} else if (value instanceof float[]) {
+			for (final float v : (float[]) value) {
+				checkFinite(v);
+				if (valid != null)
+					CheckJson.validateFloatRange(valid, v, true);
+				generator.writeNumber(v);
+				path.value();
+			}
+		} else if (value instanceof double[]) {
+			for (final double v : (double[]) value) {
+				checkFinite(v);
+				if (valid != null)
+					CheckJson.validateFloatRange(valid, v, false);
+				generator.writeNumber(v);
+				path.value();
+			}
+		} else if (value instanceof boolean[]) {
+			for (final boolean v : (boolean[]) value) {
+				generator.writeBoolean(v);
+				path.value();
+			}
+		} else
+			throw new AssertionError(String.format("Unsupported type %s", target.type));
+		generator.writeEndArray();
+		path.pop();
+	}
+}
@@ -2,12 +2,67 @@ package com.zarbosoft.checkjson.internal;
 
 import com.zarbosoft.checkjson.ValidationError;
 
+/**
+ * Thrown by states and caught at the top of the read to attach the location.  Never captures a stack trace, and the
+ * message is only formatted if it's read.
+ */
 public class InternalValidationError extends RuntimeException {
-	public InternalValidationError(final String format, final Object... args) {
-		super(String.format(format, args));
+	public final ValidationError.Code code;
+	private final String field;
+	private final String format;
+	private final Object[] args;
+
+	/**
+	 * @param code
+	 * @param format
+	 * @param args   Must not change after this - pass copies of mutable values
+	 */
+	public InternalValidationError(final ValidationError.Code code, final String format, final Object... args) {
+		this(code, null, null, format, args);
+	}
+
+	/**
+	 * @param cause Details of the error that aren't suitable for the message
+	 */
+	public InternalValidationError(
+			final Throwable cause, final ValidationError.Code code, final String format, final Object... args
+	) {
+		this(code, null, cause, format, args);
+	}
+
+	private InternalValidationError(
+			final ValidationError.Code code,
+			final String field,
+			final Throwable cause,
+			final String format,
+			final Object[] args
+	) {
+		super(null, cause, false, false);
+		this.code = code;
+		this.field = field;
+		this.format = format;
+		this.args = args;
+	}
+
+	/**
+	 * @param field The offending field, if not the last key in the path
+	 */
+	public static InternalValidationError forField(
+			final ValidationError.Code code, final String field, final String format, final Object... args
+	) {
+		return new InternalValidationError(code, field, null, format, args);
+	}
+
+	@Override
+	public String getMessage() {
+		return String.format(format, args);
 	}
 
 	public ValidationError finish(final Path path) {
-		throw new ValidationError(getMessage(), path, this);
+		return finish(path, true);
+	}
+
+	public ValidationError finish(final Path path, final boolean stackTrace) {
+		return new ValidationError(code, field == null ? path.lastKey() : field, path, this::getMessage, this, stackTrace);
 	}
 }
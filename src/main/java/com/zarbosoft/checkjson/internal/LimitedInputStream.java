@@ -0,0 +1,47 @@
+package com.zarbosoft.checkjson.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails once more than the reader's byte limit has been read, so the parser never buffers more than that.
+ */
+public class LimitedInputStream extends FilterInputStream {
+	private final long limit;
+	private long count = 0;
+
+	public LimitedInputStream(final InputStream in, final long limit) {
+		super(in);
+		this.limit = limit;
+	}
+
+	private void count(final long read) {
+		count += read;
+		if (count > limit)
+			throw Document.limitBytes(limit);
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int out = in.read();
+		if (out != -1)
+			count(1);
+		return out;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+		final int out = in.read(b, off, len);
+		if (out > 0)
+			count(out);
+		return out;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException {
+		final long out = in.skip(n);
+		count(out);
+		return out;
+	}
+}
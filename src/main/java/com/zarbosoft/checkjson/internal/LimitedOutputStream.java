@@ -0,0 +1,64 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.zarbosoft.checkjson.Valid;
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts decoded binary bytes on their way to the destination and fails as soon as the Valid maximum length is
+ * exceeded, before the rest of the value is decoded.
+ */
+public class LimitedOutputStream extends OutputStream {
+	private final OutputStream out;
+	private final Valid valid;
+	private final long limit;
+	public long count = 0;
+
+	/**
+	 * @param out   Where to write, or null to only count
+	 * @param valid Null for no limit
+	 */
+	public LimitedOutputStream(final OutputStream out, final Valid valid) {
+		this.out = out;
+		this.valid = valid;
+		if (valid == null)
+			limit = Long.MAX_VALUE;
+		else if (valid.max() == Valid.Limit.INCLUSIVE)
+			limit = valid.maxValue();
+		else if (valid.max() == Valid.Limit.EXCLUSIVE)
+			limit = valid.maxValue() - 1L;
+		else
+			limit = Long.MAX_VALUE;
+	}
+
+	private void count(final int length) {
+		count += length;
+		if (count <= limit)
+			return;
+		if (valid.max() == Valid.Limit.INCLUSIVE)
+			throw new InternalValidationError(ValidationError.Code.LENGTH,
+					"Value length is longer than the maximum %s",
+					valid.maxValue()
+			);
+		throw new InternalValidationError(ValidationError.Code.LENGTH,
+				"Value length is longer than the exclusive maximum %s",
+				valid.maxValue()
+		);
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		count(1);
+		if (out != null)
+			out.write(b);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException {
+		count(len);
+		if (out != null)
+			out.write(b, off, len);
+	}
+}
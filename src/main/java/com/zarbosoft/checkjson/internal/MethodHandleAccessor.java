@@ -0,0 +1,140 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.zarbosoft.checkjson.BinarySink;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Accessor backed by method handles resolved once per field.  {@link BinarySink} fields are opened and filled in
+ * place rather than assigned, so they only have a getter and may be final.
+ */
+public class MethodHandleAccessor extends Accessor {
+	protected final Field field;
+	protected final MethodHandle getter;
+	/**
+	 * Null for BinarySink fields
+	 */
+	protected final MethodHandle setter;
+
+	private MethodHandleAccessor(final Field field, final MethodHandle setter) {
+		this.field = field;
+		try {
+			this.getter = MethodHandles
+					.publicLookup()
+					.unreflectGetter(field)
+					.asType(MethodType.methodType(Object.class, Object.class));
+		} catch (final IllegalAccessException e) {
+			throw new AssertionError(String.format("Unable to access field %s", field), e);
+		}
+		this.setter = setter == null ? null : setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+	}
+
+	public static Accessor of(final Field field) {
+		if (BinarySink.class.isAssignableFrom(field.getType()))
+			return new MethodHandleAccessor(field, null);
+		final MethodHandle handle;
+		try {
+			handle = MethodHandles.publicLookup().unreflectSetter(field);
+		} catch (final IllegalAccessException e) {
+			throw new AssertionError(String.format("Unable to access field %s", field), e);
+		}
+		final Class<?> type = field.getType();
+		if (type == int.class)
+			return new MethodHandleAccessor(field, handle) {
+				private final MethodHandle intSetter = primitive(handle, int.class);
+
+				@Override
+				public void setInt(final Object object, final int value) {
+					try {
+						intSetter.invokeExact(object, value);
+					} catch (final Throwable e) {
+						throw fail(object, e);
+					}
+				}
+			};
+		if (type == long.class)
+			return new MethodHandleAccessor(field, handle) {
+				private final MethodHandle longSetter = primitive(handle, long.class);
+
+				@Override
+				public void setLong(final Object object, final long value) {
+					try {
+						longSetter.invokeExact(object, value);
+					} catch (final Throwable e) {
+						throw fail(object, e);
+					}
+				}
+			};
+		if (type == float.class)
+			return new MethodHandleAccessor(field, handle) {
+				private final MethodHandle floatSetter = primitive(handle, float.class);
+
+				@Override
+				public void setFloat(final Object object, final float value) {
+					try {
+						floatSetter.invokeExact(object, value);
+					} catch (final Throwable e) {
+						throw fail(object, e);
+					}
+				}
+			};
+		if (type == double.class)
+			return new MethodHandleAccessor(field, handle) {
+				private final MethodHandle doubleSetter = primitive(handle, double.class);
+
+				@Override
+				public void setDouble(final Object object, final double value) {
+					try {
+						doubleSetter.invokeExact(object, value);
+					} catch (final Throwable e) {
+						throw fail(object, e);
+					}
+				}
+			};
+		if (type == boolean.class)
+			return new MethodHandleAccessor(field, handle) {
+				private final MethodHandle booleanSetter = primitive(handle, boolean.class);
+
+				@Override
+				public void setBoolean(final Object object, final boolean value) {
+					try {
+						booleanSetter.invokeExact(object, value);
+					} catch (final Throwable e) {
+						throw fail(object, e);
+					}
+				}
+			};
+		return new MethodHandleAccessor(field, handle);
+	}
+
+	private static MethodHandle primitive(final MethodHandle handle, final Class<?> type) {
+		return handle.asType(MethodType.methodType(void.class, Object.class, type));
+	}
+
+	protected AssertionError fail(final Object object, final Throwable e) {
+		return new AssertionError(String.format("Error accessing field %s in class %s", field, object.getClass()), e);
+	}
+
+	@Override
+	public Object get(final Object object) {
+		try {
+			return (Object) getter.invokeExact(object);
+		} catch (final Throwable e) {
+			throw fail(object, e);
+		}
+	}
+
+	@Override
+	public void set(final Object object, final Object value) {
+		if (setter == null)
+			throw new AssertionError(String.format("BinarySink field %s is filled in place and can't be set", field));
+		try {
+			setter.invokeExact(object, value);
+		} catch (final Throwable e) {
+			throw fail(object, e);
+		}
+	}
+}
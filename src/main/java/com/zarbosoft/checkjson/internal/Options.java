@@ -0,0 +1,80 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.zarbosoft.checkjson.CheckJsonListener;
+
+/**
+ * Per reader settings, shared by every document the reader reads.
+ */
+public class Options {
+	public static final Options DEFAULT =
+			new Options(true, null, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, false);
+
+	/**
+	 * Capture stack traces in thrown ValidationErrors.  Turning this off makes rejecting invalid input much cheaper.
+	 */
+	public final boolean stackTraces;
+
+	/**
+	 * Receives document statistics, or null to skip measuring entirely
+	 */
+	public final CheckJsonListener listener;
+
+	/**
+	 * Per document limits, MAX_VALUE if unlimited.  Bytes are characters for String input.
+	 */
+	public final int maxDepth;
+	public final long maxTokens;
+	public final long maxBytes;
+
+	/**
+	 * Skip fields that aren't declared in the class instead of rejecting the document
+	 */
+	public final boolean ignoreUnknown;
+
+	private Options(
+			final boolean stackTraces,
+			final CheckJsonListener listener,
+			final int maxDepth,
+			final long maxTokens,
+			final long maxBytes,
+			final boolean ignoreUnknown
+	) {
+		this.stackTraces = stackTraces;
+		this.listener = listener;
+		this.maxDepth = maxDepth;
+		this.maxTokens = maxTokens;
+		this.maxBytes = maxBytes;
+		this.ignoreUnknown = ignoreUnknown;
+	}
+
+	public Options withStackTraces(final boolean stackTraces) {
+		return new Options(stackTraces, listener, maxDepth, maxTokens, maxBytes, ignoreUnknown);
+	}
+
+	public Options withListener(final CheckJsonListener listener) {
+		return new Options(stackTraces, listener, maxDepth, maxTokens, maxBytes, ignoreUnknown);
+	}
+
+	public Options withMaxDepth(final int maxDepth) {
+		return new Options(stackTraces, listener, maxDepth, maxTokens, maxBytes, ignoreUnknown);
+	}
+
+	public Options withMaxTokens(final long maxTokens) {
+		return new Options(stackTraces, listener, maxDepth, maxTokens, maxBytes, ignoreUnknown);
+	}
+
+	public Options withMaxBytes(final long maxBytes) {
+		return new Options(stackTraces, listener, maxDepth, maxTokens, maxBytes, ignoreUnknown);
+	}
+
+	public Options withIgnoreUnknown(final boolean ignoreUnknown) {
+		return new Options(stackTraces, listener, maxDepth, maxTokens, maxBytes, ignoreUnknown);
+	}
+
+	/**
+	 * @return true if tokens need counting
+	 */
+	boolean countTokens() {
+		return listener != null || maxTokens != Long.MAX_VALUE;
+	}
+}
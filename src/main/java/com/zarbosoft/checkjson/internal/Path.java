@@ -1,46 +1,152 @@
 package com.zarbosoft.checkjson.internal;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
+/**
+ * Tracks the location in the document as a stack of containers indexed by depth.  Nothing is allocated per token;
+ * the path is only formatted when an error is reported.
+ */
 public class Path {
-	List<PathElement> path = new ArrayList<>();
+	private boolean[] arrays;
+	private String[] keys;
+	private int[] indices;
+	private int size = 0;
+	private int maxDepth = 0;
+	private final String unit;
+	private final long position;
 
 	public Path() {
-		path.add(new PathObject());
+		this(null, -1);
 	}
 
-	private PathElement top() {
-		return path.get(path.size() - 1);
+	/**
+	 * @param record The index of the document in a stream of documents, shown in the formatted path
+	 */
+	public Path(final long record) {
+		this("record", record);
+	}
+
+	/**
+	 * @param unit     What position counts, for instance "record" or "byte"
+	 * @param position Where the document starts in a larger input, shown in the formatted path
+	 */
+	public Path(final String unit, final long position) {
+		this.unit = unit;
+		this.position = position;
+		this.arrays = new boolean[16];
+		this.keys = new String[16];
+		this.indices = new int[16];
+		object();
+	}
+
+	private Path(final Path other) {
+		this.unit = other.unit;
+		this.position = other.position;
+		this.size = other.size;
+		this.maxDepth = other.maxDepth;
+		this.arrays = Arrays.copyOf(other.arrays, Math.max(1, size));
+		this.keys = Arrays.copyOf(other.keys, Math.max(1, size));
+		this.indices = Arrays.copyOf(other.indices, Math.max(1, size));
+	}
+
+	public Path copy() {
+		return new Path(this);
+	}
+
+	private void push(final boolean array) {
+		if (size == arrays.length) {
+			arrays = Arrays.copyOf(arrays, size * 2);
+			keys = Arrays.copyOf(keys, size * 2);
+			indices = Arrays.copyOf(indices, size * 2);
+		}
+		arrays[size] = array;
+		keys[size] = "";
+		indices[size] = 0;
+		size += 1;
+		if (size > maxDepth)
+			maxDepth = size;
 	}
 
 	public void key(final String key) {
-		top().key(key);
+		if (arrays[size - 1])
+			// Should be caught by Jackson
+			throw new AssertionError();
+		keys[size - 1] = key;
 	}
 
 	public void object() {
-		path.add(new PathObject());
+		push(false);
 	}
 
 	public void array() {
-		path.add(new PathArray());
+		push(true);
 	}
 
 	public void value() {
-		top().value();
+		if (arrays[size - 1])
+			indices[size - 1] += 1;
 	}
 
 	public void pop() {
-		path.remove(path.size() - 1);
+		size -= 1;
+		keys[size] = null;
 	}
 
 	@Override
 	public String toString() {
-		return String.format("$%s", path.stream().map(e -> e.toString()).collect(Collectors.joining()));
+		final StringBuilder out = new StringBuilder();
+		if (unit != null)
+			out.append(unit).append(' ').append(position).append(' ');
+		out.append('$');
+		for (int i = 0; i < size; ++i) {
+			if (arrays[i])
+				out.append('[').append(indices[i]).append(']');
+			else
+				out.append('.').append(keys[i]);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * @return The path without array indices or document position, like $.a[].b - suitable for grouping errors
+	 */
+	public String pattern() {
+		final StringBuilder out = new StringBuilder("$");
+		for (int i = 0; i < size; ++i) {
+			if (arrays[i])
+				out.append("[]");
+			else
+				out.append('.').append(keys[i]);
+		}
+		return out.toString();
+	}
+
+	/**
+	 * @return The current nesting of objects and arrays
+	 */
+	public int depth() {
+		return size;
+	}
+
+	/**
+	 * @return The deepest nesting of objects and arrays seen so far
+	 */
+	public int maxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * @return The key in the innermost object, or null if not in an object or no key has been read yet
+	 */
+	public String lastKey() {
+		for (int i = size - 1; i >= 0; --i) {
+			if (!arrays[i])
+				return keys[i].isEmpty() ? null : keys[i];
+		}
+		return null;
 	}
 
 	public boolean isEmpty() {
-		return path.isEmpty();
+		return size == 0;
 	}
 }
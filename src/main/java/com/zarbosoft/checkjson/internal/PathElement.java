@@ -1,8 +0,0 @@
-package com.zarbosoft.checkjson.internal;
-
-public abstract class PathElement {
-
-	public abstract void key(String key);
-
-	public abstract void value();
-}
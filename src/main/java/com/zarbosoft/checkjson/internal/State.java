@@ -1,5 +1,11 @@
 package com.zarbosoft.checkjson.internal;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.SerializableString;
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.io.IOException;
+
 public abstract class State {
 	public abstract void badEvent(String event);
 
@@ -8,7 +14,7 @@ public abstract class State {
 	}
 
 	public void eventEndObject() {
-		throw new InternalValidationError("} without matching {.");
+		throw new InternalValidationError(ValidationError.Code.SYNTAX, "} without matching {.");
 	}
 
 	public void eventStartArray() {
@@ -16,22 +22,37 @@ public abstract class State {
 	}
 
 	public void eventEndArray() {
-		throw new InternalValidationError("] without matching [.");
+		throw new InternalValidationError(ValidationError.Code.SYNTAX, "] without matching [.");
 	}
 
 	public void eventField(final String name) {
 		badEvent("field");
 	}
 
-	public void eventString(final String value) {
+	/**
+	 * @return The name of the field expected next, for the parser to match without decoding it, or null if no field
+	 * is expected
+	 */
+	public SerializableString predictField() {
+		return null;
+	}
+
+	/**
+	 * The parser matched the name returned by {@link #predictField()}.
+	 */
+	public void eventPredictedField() {
+		badEvent("field");
+	}
+
+	public void eventString(final JsonParser stream) throws IOException {
 		badEvent("string");
 	}
 
-	public void eventInt(final String value) {
+	public void eventInt(final JsonParser stream) throws IOException {
 		badEvent("int");
 	}
 
-	public void eventFloat(final String value) {
+	public void eventFloat(final JsonParser stream) throws IOException {
 		badEvent("float");
 	}
 
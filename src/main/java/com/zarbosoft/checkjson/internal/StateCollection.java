@@ -1,23 +1,52 @@
 package com.zarbosoft.checkjson.internal;
 
+import com.zarbosoft.checkjson.CheckJson;
 import com.zarbosoft.checkjson.Valid;
+import com.zarbosoft.checkjson.ValidationError;
 
 import java.util.Collection;
-import java.util.Deque;
+import java.util.List;
 
 public class StateCollection extends StateValueBase {
 	public final Collection collection;
 	public final TypeInfo type;
+	private final Valid sizeValid;
+	private final int maxSize;
+	private int size = 0;
 
-	StateCollection(final Deque<State> stack, final TypeInfo type, final Collection collection) {
-		super(stack);
+	/**
+	 * When refilling a list, the elements it had before.  They're overwritten in place (and can be refilled themselves)
+	 * and any left over are removed at the end.
+	 */
+	private final List reused;
+	private final int reusedSize;
+
+	/**
+	 * @param document
+	 * @param type
+	 * @param collection null if only validating
+	 * @param reuse      true if the collection is an existing one to refill
+	 */
+	StateCollection(final Document document, final TypeInfo type, final Collection collection, final boolean reuse) {
+		super(document);
 		this.collection = collection;
 		this.type = type;
+		this.sizeValid = type.klass().getAnnotation(Valid.class);
+		this.maxSize = CheckJson.maxLength(sizeValid);
+		if (reuse && collection instanceof List) {
+			this.reused = (List) collection;
+			this.reusedSize = reused.size();
+		} else {
+			if (reuse)
+				collection.clear();
+			this.reused = null;
+			this.reusedSize = 0;
+		}
 	}
 
 	@Override
 	public void badEvent(final String event) {
-		throw new InternalValidationError("Expected %s but got %s", type.friendlyType(), event);
+		throw new InternalValidationError(ValidationError.Code.TYPE_MISMATCH, "Expected %s but got %s", type.friendlyType(), event);
 	}
 
 	@Override
@@ -25,9 +54,20 @@ public class StateCollection extends StateValueBase {
 		return type;
 	}
 
+	@Override
+	public Object existing() {
+		return size < reusedSize ? reused.get(size) : null;
+	}
+
 	@Override
 	public void produce(final Object value) {
-		collection.add(value);
+		size += 1;
+		if (size > maxSize)
+			CheckJson.validateSize(sizeValid, size);
+		if (size <= reusedSize)
+			reused.set(size - 1, value);
+		else if (collection != null)
+			collection.add(value);
 	}
 
 	@Override
@@ -36,29 +76,9 @@ public class StateCollection extends StateValueBase {
 
 	@Override
 	public void eventEndArray() {
-		final Valid valid = target().klass().getAnnotation(Valid.class);
-		if (valid != null) {
-			if (valid.min() == Valid.Limit.EXCLUSIVE && collection.size() <= valid.minValue())
-				throw new InternalValidationError("Array size %s is below exclusive minimum %s",
-						collection.size(),
-						valid.minValue()
-				);
-			if (valid.min() == Valid.Limit.INCLUSIVE && collection.size() < valid.minValue())
-				throw new InternalValidationError("Array size %s is below inclusive minimum %s",
-						collection.size(),
-						valid.minValue()
-				);
-			if (valid.max() == Valid.Limit.EXCLUSIVE && collection.size() >= valid.maxValue())
-				throw new InternalValidationError("Array size %s is above exclusive maximum %s",
-						collection.size(),
-						valid.maxValue()
-				);
-			if (valid.max() == Valid.Limit.INCLUSIVE && collection.size() > valid.maxValue())
-				throw new InternalValidationError("Array size %s is above inclusive maximum %s",
-						collection.size(),
-						valid.maxValue()
-				);
-		}
+		CheckJson.validateSize(sizeValid, size);
+		if (size < reusedSize)
+			reused.subList(size, reusedSize).clear();
 		stack.removeLast();
 	}
 }
@@ -1,20 +1,26 @@
 package com.zarbosoft.checkjson.internal;
 
-import java.util.Deque;
+import com.fasterxml.jackson.core.JsonParser;
+import com.zarbosoft.checkjson.BinarySink;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.io.IOException;
+import java.io.OutputStream;
 
 public class StateField extends StateValueBase {
 
 	private final Object object;
 	private final TypeInfo field;
 
-	public StateField(final Deque<State> stack, final Object object, final TypeInfo field) {
-		super(stack);
+	public StateField(final Document document, final Object object, final TypeInfo field) {
+		super(document);
 		this.object = object;
 		this.field = field;
 	}
 
 	public void badEvent(final String event) {
-		throw new InternalValidationError("Expected %s but got %s", field.friendlyType(), event);
+		throw new InternalValidationError(ValidationError.Code.TYPE_MISMATCH, "Expected %s but got %s", field.friendlyType(), event);
 	}
 
 	@Override
@@ -23,17 +29,76 @@ public class StateField extends StateValueBase {
 	}
 
 	@Override
-	public void produce(final Object value) {
-		try {
-			field.field.set(object, value);
-			stack.removeLast();
-		} catch (final IllegalAccessException e) {
-			throw new AssertionError(String.format("Error setting field %s in class %s", field, object.getClass()), e);
+	public void eventString(final JsonParser stream) throws IOException {
+		if (!field.isBinarySink()) {
+			super.eventString(stream);
+			return;
 		}
+		if (object == null) {
+			CheckJson.readBinary(field, stream, null);
+		} else {
+			final BinarySink sink = (BinarySink) field.accessor.get(object);
+			if (sink == null)
+				throw new AssertionError(String.format("BinarySink field %s must be initialized", field.field));
+			try (final OutputStream out = sink.open()) {
+				CheckJson.readBinary(field, stream, out);
+			}
+		}
+		stack.removeLast();
+	}
+
+	@Override
+	public Object existing() {
+		return object == null ? null : field.accessor.get(object);
+	}
+
+	@Override
+	public void produce(final Object value) {
+		if (object != null)
+			field.accessor.set(object, value);
+		stack.removeLast();
+	}
+
+	@Override
+	public void produceInt(final int value) {
+		if (object != null)
+			field.accessor.setInt(object, value);
+		stack.removeLast();
+	}
+
+	@Override
+	public void produceLong(final long value) {
+		if (object != null)
+			field.accessor.setLong(object, value);
+		stack.removeLast();
+	}
+
+	@Override
+	public void produceFloat(final float value) {
+		if (object != null)
+			field.accessor.setFloat(object, value);
+		stack.removeLast();
+	}
+
+	@Override
+	public void produceDouble(final double value) {
+		if (object != null)
+			field.accessor.setDouble(object, value);
+		stack.removeLast();
+	}
+
+	@Override
+	public void produceBoolean(final boolean value) {
+		if (object != null)
+			field.accessor.setBoolean(object, value);
+		stack.removeLast();
 	}
 
 	@Override
 	public void abort() {
+		if (document.reuse && object != null && !field.isBinarySink())
+			// Leave the field as it would be in a new object
+			field.accessor.set(object, ClassInfo.get(object.getClass()).defaultValue(field.accessor));
 		stack.removeLast();
 	}
 }
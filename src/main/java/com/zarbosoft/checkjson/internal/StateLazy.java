@@ -0,0 +1,85 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.zarbosoft.checkjson.Lazy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Deque;
+
+/**
+ * Records the object of a {@link Lazy} field token by token, for non-blocking parsers which can't copy it in place.
+ * The document passes tokens straight to {@link #event(JsonParser, JsonToken)} so, as when a blocking parser copies
+ * it, they aren't tracked in the path or counted against the limits.
+ */
+public class StateLazy extends State {
+	private final Document document;
+	private final Deque<State> stack;
+	private final StateValueBase parent;
+	private final Path path;
+
+	/**
+	 * Null if only validating
+	 */
+	private final ByteArrayOutputStream out;
+	private final JsonGenerator generator;
+	private int depth = 1;
+
+	/**
+	 * @param document
+	 * @param parent   The state whose target is the Lazy, receives it at the end of the object
+	 * @param path     The location of the object, inside it
+	 */
+	public StateLazy(final Document document, final StateValueBase parent, final Path path) throws IOException {
+		this.document = document;
+		this.stack = document.stack;
+		this.parent = parent;
+		this.path = path;
+		if (document.bind) {
+			out = new ByteArrayOutputStream();
+			generator = Document.factory.createGenerator(out);
+			generator.writeStartObject();
+		} else {
+			out = null;
+			generator = null;
+		}
+	}
+
+	@Override
+	public void badEvent(final String event) {
+		// Tokens come through event
+		throw new AssertionError();
+	}
+
+	/**
+	 * @return true at the end of the object, once the Lazy has been produced and this state removed
+	 */
+	boolean event(final JsonParser stream, final JsonToken token) throws IOException {
+		switch (token) {
+			case START_OBJECT:
+			case START_ARRAY:
+				depth += 1;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth -= 1;
+				break;
+			default:
+				break;
+		}
+		if (generator != null)
+			generator.copyCurrentEvent(stream);
+		if (depth > 0)
+			return false;
+		stack.removeLast();
+		if (generator == null) {
+			parent.produce(null);
+			return true;
+		}
+		generator.close();
+		parent.produce(new Lazy<>(parent.target().parameters[0], path, document.options, out.toByteArray()));
+		return true;
+	}
+}
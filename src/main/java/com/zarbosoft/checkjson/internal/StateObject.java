@@ -1,38 +1,52 @@
 package com.zarbosoft.checkjson.internal;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.zarbosoft.checkjson.Valid;
+import com.fasterxml.jackson.core.SerializableString;
+import com.zarbosoft.checkjson.ValidationError;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class StateObject extends State {
+	private final Document document;
 	private final Deque<State> stack;
+	private final ClassInfo info;
 	public final Object object;
-	private final Map<String, Field> fields;
-
-	public StateObject(final Deque<State> stack, final TypeInfo target) {
-		this.stack = stack;
-		final Class<?> type = target.klass();
-		try {
-			object = type.getConstructor().newInstance();
-		} catch (final Exception e) {
-			throw new AssertionError(String.format("Unable to instantiate class %s", type), e);
-		}
-		fields = Stream
-				.of(type.getFields())
-				.filter(f -> f.getAnnotation(JsonProperty.class) != null)
-				.collect(Collectors.toMap(f -> {
-					final JsonProperty annotation = f.getAnnotation(JsonProperty.class);
-					if (annotation != null && annotation.value() != null && !annotation.value().isEmpty())
-						return annotation.value();
-					return f.getName();
-				}, f -> f));
+
+	/**
+	 * True if object is an existing object being refilled, so fields missing from the document must be reset
+	 */
+	private final boolean reused;
+
+	/**
+	 * Bitset of the indices of fields read so far.  The first word is kept separately so objects with up to 64 fields
+	 * don't allocate.
+	 */
+	private long seen;
+	private final long[] seenRest;
+
+	/**
+	 * Index of the field predicted to come next - the one declared after the last field read.
+	 */
+	private int next = 0;
+
+	public StateObject(final Document document, final TypeInfo target) {
+		this(document, target, null);
+	}
+
+	/**
+	 * @param document
+	 * @param target
+	 * @param existing An object to refill rather than creating a new one.  It's only used if it's exactly the target
+	 *                 class.
+	 */
+	public StateObject(final Document document, final TypeInfo target, final Object existing) {
+		this.document = document;
+		this.stack = document.stack;
+		info = ClassInfo.get(target.klass());
+		reused = existing != null && existing.getClass() == target.klass();
+		object = reused ? existing : document.bind ? info.newInstance() : null;
+		seenRest = info.required.length > 1 ? new long[info.required.length] : null;
 	}
 
 	public void badEvent(final String event) {
@@ -42,25 +56,92 @@ public class StateObject extends State {
 
 	@Override
 	public void eventField(final String name) {
-		final Field field = fields.remove(name);
-		if (field == null)
-			throw new InternalValidationError("Unknown field %s", name);
-		stack.addLast(new StateField(stack, object, new TypeInfo(field)));
+		final int index = info.index(name);
+		if (index == -1 && (document.options.ignoreUnknown || info.ignored(name))) {
+			document.skip = true;
+			return;
+		}
+		if (index == -1 || !see(index))
+			throw new InternalValidationError(ValidationError.Code.UNKNOWN_FIELD, "Unknown field %s", name);
+		field(index);
+	}
+
+	@Override
+	public SerializableString predictField() {
+		return next < info.serializedNames.length ? info.serializedNames[next] : null;
+	}
+
+	@Override
+	public void eventPredictedField() {
+		if (!see(next))
+			throw new InternalValidationError(ValidationError.Code.UNKNOWN_FIELD, "Unknown field %s", info.names[next]);
+		field(next);
+	}
+
+	private void field(final int index) {
+		next = index + 1;
+		stack.addLast(new StateField(document, object, info.fields[index]));
+	}
+
+	/**
+	 * @return false if the field was already seen
+	 */
+	private boolean see(final int index) {
+		final long bit = 1L << index;
+		if (seenRest == null) {
+			if ((seen & bit) != 0)
+				return false;
+			seen |= bit;
+		} else {
+			final int word = index >>> 6;
+			if ((seenRest[word] & bit) != 0)
+				return false;
+			seenRest[word] |= bit;
+		}
+		return true;
 	}
 
 	@Override
 	public void eventEndObject() {
-		final List<String> required = fields
-				.entrySet()
-				.stream()
-				.filter(f -> !Optional
-						.ofNullable(f.getValue().getAnnotation(Valid.class))
-						.map(a -> a.optional())
-						.orElse(false))
-				.map(f -> f.getKey())
-				.collect(Collectors.toList());
-		if (!required.isEmpty())
-			throw new InternalValidationError("Missing required fields %s", required);
+		if (seenRest == null) {
+			if ((seen & info.required[0]) != info.required[0])
+				throw missing();
+		} else {
+			for (int i = 0; i < seenRest.length; ++i)
+				if ((seenRest[i] & info.required[i]) != info.required[i])
+					throw missing();
+		}
+		if (reused)
+			reset();
 		stack.removeLast();
 	}
+
+	private boolean seen(final int index) {
+		final long word = seenRest == null ? seen : seenRest[index >>> 6];
+		return (word & (1L << index)) != 0;
+	}
+
+	/**
+	 * Give fields missing from the document the value they'd have in a new object.  Sinks are kept, they're never
+	 * assigned.
+	 */
+	private void reset() {
+		for (int i = 0; i < info.fields.length; ++i) {
+			if (!seen(i) && !info.fields[i].isBinarySink())
+				info.fields[i].accessor.set(object, info.defaultValue(info.fields[i].accessor));
+		}
+	}
+
+	private InternalValidationError missing() {
+		final List<String> required = new ArrayList<>();
+		for (int i = 0; i < info.fields.length; ++i) {
+			if ((info.required[i >>> 6] & (1L << i)) != 0 && !seen(i))
+				required.add(info.names[i]);
+		}
+		return InternalValidationError.forField(ValidationError.Code.MISSING_FIELD,
+				required.get(0),
+				"Missing required fields %s",
+				required
+		);
+	}
 }
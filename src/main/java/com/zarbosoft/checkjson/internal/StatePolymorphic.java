@@ -0,0 +1,251 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Deque;
+import java.util.TreeSet;
+
+/**
+ * The start of an object whose class is chosen by a discriminator property.  If the discriminator is the first field
+ * the subtype is chosen immediately and the rest of the object is read directly.  Otherwise the fields before it are
+ * buffered and replayed into the subtype once it's known.
+ */
+public class StatePolymorphic extends State {
+	private final Document document;
+	private final Deque<State> stack;
+	private final ClassInfo info;
+
+	/**
+	 * Receives the object once the subtype is known, or null at the document root
+	 */
+	private final StateValueBase parent;
+
+	/**
+	 * True after the discriminator name, while waiting for the id
+	 */
+	private boolean id = false;
+
+	/**
+	 * Fields before the discriminator, null until the first one
+	 */
+	private TokenBuffer buffer;
+
+	/**
+	 * Nesting within the buffered fields
+	 */
+	private int depth = 0;
+
+	public StatePolymorphic(final Document document, final ClassInfo info, final StateValueBase parent) {
+		this.document = document;
+		this.stack = document.stack;
+		this.info = info;
+		this.parent = parent;
+	}
+
+	@Override
+	public void badEvent(final String event) {
+		if (id)
+			throw InternalValidationError.forField(ValidationError.Code.TYPE_MISMATCH,
+					info.discriminator,
+					"Expected string but got %s",
+					event
+			);
+		// Should be caught by jackson
+		throw new AssertionError();
+	}
+
+	@Override
+	public SerializableString predictField() {
+		return buffer == null && !id ? info.serializedDiscriminator : null;
+	}
+
+	@Override
+	public void eventPredictedField() {
+		id = true;
+	}
+
+	@Override
+	public void eventField(final String name) {
+		if (depth == 0 && name.equals(info.discriminator)) {
+			id = true;
+			return;
+		}
+		try {
+			if (buffer == null) {
+				buffer = new TokenBuffer(null, false);
+				buffer.writeStartObject();
+			}
+			buffer.writeFieldName(name);
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventStartObject() {
+		if (id)
+			badEvent("object");
+		depth += 1;
+		try {
+			buffer.writeStartObject();
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventEndObject() {
+		if (depth == 0)
+			throw InternalValidationError.forField(ValidationError.Code.MISSING_FIELD,
+					info.discriminator,
+					"Missing required fields [%s]",
+					info.discriminator
+			);
+		depth -= 1;
+		try {
+			buffer.writeEndObject();
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventStartArray() {
+		if (id)
+			badEvent("array");
+		depth += 1;
+		try {
+			buffer.writeStartArray();
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventEndArray() {
+		depth -= 1;
+		try {
+			buffer.writeEndArray();
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventString(final JsonParser stream) throws IOException {
+		if (!id) {
+			buffer.copyCurrentEvent(stream);
+			return;
+		}
+		final String name = stream.getText();
+		final TypeInfo subtype = info.subtypes.get(name);
+		if (subtype == null)
+			throw InternalValidationError.forField(ValidationError.Code.TYPE_MISMATCH,
+					info.discriminator,
+					"Unknown type [%s], expected one of %s",
+					CheckJson.preview(name),
+					new TreeSet<>(info.subtypes.keySet())
+			);
+		final Object existing = !document.reuse ? null : parent == null ? document.into : parent.existing();
+		stack.removeLast();
+		final StateObject newTop = new StateObject(document, subtype, existing);
+		if (parent == null)
+			document.result = newTop.object;
+		else
+			parent.produce(newTop.object);
+		stack.addLast(newTop);
+		if (ClassInfo.get(subtype.klass()).index(info.discriminator) != -1) {
+			// The subtype also declares the discriminator as a field
+			newTop.eventField(info.discriminator);
+			stack.getLast().eventString(stream);
+		}
+		if (buffer != null) {
+			final JsonParser replay = new Replay(buffer.asParser());
+			replay.nextToken(); // Skip the buffer's start object, the subtype's object is already started
+			for (JsonToken token = replay.nextToken(); token != null; token = replay.nextToken())
+				document.event(replay, token);
+		}
+	}
+
+	/**
+	 * The buffer's parser reports bad base64 as a parse error rather than an IllegalArgumentException like the
+	 * streaming parsers.
+	 */
+	private static class Replay extends JsonParserDelegate {
+		Replay(final JsonParser delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public int readBinaryValue(final OutputStream out) throws IOException {
+			return readBinaryValue(Base64Variants.getDefaultVariant(), out);
+		}
+
+		@Override
+		public int readBinaryValue(final Base64Variant variant, final OutputStream out) throws IOException {
+			try {
+				return super.readBinaryValue(variant, out);
+			} catch (final JsonParseException e) {
+				throw new IllegalArgumentException(e.getOriginalMessage(), e);
+			}
+		}
+	}
+
+	@Override
+	public void eventInt(final JsonParser stream) throws IOException {
+		if (id)
+			badEvent("int");
+		buffer.copyCurrentEvent(stream);
+	}
+
+	@Override
+	public void eventFloat(final JsonParser stream) throws IOException {
+		if (id)
+			badEvent("float");
+		buffer.copyCurrentEvent(stream);
+	}
+
+	@Override
+	public void eventTrue() {
+		if (id)
+			badEvent("true");
+		try {
+			buffer.writeBoolean(true);
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventFalse() {
+		if (id)
+			badEvent("false");
+		try {
+			buffer.writeBoolean(false);
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	@Override
+	public void eventNull() {
+		if (id)
+			badEvent("null");
+		try {
+			buffer.writeNull();
+		} catch (final IOException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.zarbosoft.checkjson.ValidationError;
+
+import java.util.Arrays;
+
+/**
+ * Collects elements directly into a primitive array, which is produced to the parent once the array closes.
+ * <p>
+ * The field's Valid constrains the elements, as for collections of boxed values, and there's no class to carry a size
+ * constraint - the length is only bounded by the reader's token and byte limits.
+ */
+public class StatePrimitiveArray extends StateValueBase {
+	private final StateValueBase parent;
+	private final TypeInfo type;
+	private final TypeInfo element;
+	private int size = 0;
+	private int[] ints;
+	private long[] longs;
+	private float[] floats;
+	private double[] doubles;
+	private boolean[] booleans;
+
+	StatePrimitiveArray(final Document document, final StateValueBase parent, final TypeInfo type) {
+		super(document);
+		this.parent = parent;
+		this.type = type;
+		this.element = type.parameters[0];
+	}
+
+	@Override
+	public void badEvent(final String event) {
+		throw new InternalValidationError(ValidationError.Code.TYPE_MISMATCH, "Expected %s but got %s", element.friendlyType(), event);
+	}
+
+	@Override
+	public TypeInfo target() {
+		return element;
+	}
+
+	@Override
+	public void produce(final Object value) {
+		throw new AssertionError();
+	}
+
+	private static int grow(final int capacity) {
+		return capacity * 2;
+	}
+
+	@Override
+	public void produceInt(final int value) {
+		if (!document.bind) {
+			size += 1;
+			return;
+		}
+		if (ints == null)
+			ints = new int[16];
+		else if (size == ints.length)
+			ints = Arrays.copyOf(ints, grow(size));
+		ints[size++] = value;
+	}
+
+	@Override
+	public void produceLong(final long value) {
+		if (!document.bind) {
+			size += 1;
+			return;
+		}
+		if (longs == null)
+			longs = new long[16];
+		else if (size == longs.length)
+			longs = Arrays.copyOf(longs, grow(size));
+		longs[size++] = value;
+	}
+
+	@Override
+	public void produceFloat(final float value) {
+		if (!document.bind) {
+			size += 1;
+			return;
+		}
+		if (floats == null)
+			floats = new float[16];
+		else if (size == floats.length)
+			floats = Arrays.copyOf(floats, grow(size));
+		floats[size++] = value;
+	}
+
+	@Override
+	public void produceDouble(final double value) {
+		if (!document.bind) {
+			size += 1;
+			return;
+		}
+		if (doubles == null)
+			doubles = new double[16];
+		else if (size == doubles.length)
+			doubles = Arrays.copyOf(doubles, grow(size));
+		doubles[size++] = value;
+	}
+
+	@Override
+	public void produceBoolean(final boolean value) {
+		if (!document.bind) {
+			size += 1;
+			return;
+		}
+		if (booleans == null)
+			booleans = new boolean[16];
+		else if (size == booleans.length)
+			booleans = Arrays.copyOf(booleans, grow(size));
+		booleans[size++] = value;
+	}
+
+	@Override
+	public void abort() {
+	}
+
+	@Override
+	public void eventEndArray() {
+		final Object array;
+		final Class<?> component = element.klass();
+		if (!document.bind)
+			array = null;
+		else if (component == int.class)
+			array = ints == null ? new int[0] : Arrays.copyOf(ints, size);
+		else if (component == long.class)
+			array = longs == null ? new long[0] : Arrays.copyOf(longs, size);
+		else if (component == float.class)
+			array = floats == null ? new float[0] : Arrays.copyOf(floats, size);
+		else if (component == double.class)
+			array = doubles == null ? new double[0] : Arrays.copyOf(doubles, size);
+		else if (component == boolean.class)
+			array = booleans == null ? new boolean[0] : Arrays.copyOf(booleans, size);
+		else
+			throw new AssertionError(String.format("Unsupported array type %s", type.type));
+		stack.removeLast();
+		parent.produce(array);
+	}
+}
@@ -0,0 +1,44 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.util.Deque;
+
+/**
+ * Discards the value of an ignored field token by token, for non-blocking parsers which can't skip it in place.  The
+ * document passes tokens straight to {@link #event(JsonToken)} so, as when a blocking parser skips, they aren't
+ * tracked in the path or counted against the limits.
+ */
+public class StateSkip extends State {
+	private final Deque<State> stack;
+	private int depth = 0;
+
+	public StateSkip(final Document document) {
+		this.stack = document.stack;
+	}
+
+	@Override
+	public void badEvent(final String event) {
+		// Tokens come through event
+		throw new AssertionError();
+	}
+
+	void event(final JsonToken token) {
+		switch (token) {
+			case START_OBJECT:
+			case START_ARRAY:
+				depth += 1;
+				return;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth -= 1;
+				break;
+			case FIELD_NAME:
+				return;
+			default:
+				break;
+		}
+		if (depth == 0)
+			stack.removeLast();
+	}
+}
@@ -1,145 +1,166 @@
 package com.zarbosoft.checkjson.internal;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.zarbosoft.checkjson.CheckJson;
 import com.zarbosoft.checkjson.Valid;
+import com.zarbosoft.checkjson.ValidationError;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.CharBuffer;
 import java.util.*;
 
 import static com.zarbosoft.checkjson.CheckJson.getValid;
 
 public abstract class StateValueBase extends State {
+	protected final Document document;
 	protected final Deque<State> stack;
 
-	public StateValueBase(final Deque<State> stack) {
-		this.stack = stack;
+	public StateValueBase(final Document document) {
+		this.document = document;
+		this.stack = document.stack;
 	}
 
 	public abstract TypeInfo target();
 
 	public abstract void produce(Object value);
 
+	public void produceInt(final int value) {
+		produce(value);
+	}
+
+	public void produceLong(final long value) {
+		produce(value);
+	}
+
+	public void produceFloat(final float value) {
+		produce(value);
+	}
+
+	public void produceDouble(final double value) {
+		produce(value);
+	}
+
+	public void produceBoolean(final boolean value) {
+		produce(value);
+	}
+
 	public abstract void abort();
 
+	/**
+	 * @return The value currently in the target, to refill when the document reuses objects.  Only called if
+	 * {@link Document#reuse} is set.
+	 */
+	public Object existing() {
+		return null;
+	}
+
 	@Override
 	public void eventStartObject() {
-		if (((Class<?>) (target().type)).isPrimitive())
+		if (target().isLazy()) {
+			document.lazy = this;
+			return;
+		}
+		if (!target().isObject())
 			super.eventStartObject();
-		final StateObject newTop = new StateObject(stack, target());
+		final ClassInfo info = ClassInfo.get(target().klass());
+		if (info.isPolymorphic()) {
+			stack.addLast(new StatePolymorphic(document, info, this));
+			return;
+		}
+		final StateObject newTop = new StateObject(document, target(), document.reuse ? existing() : null);
 		produce(newTop.object);
 		stack.addLast(newTop);
 	}
 
 	@Override
 	public void eventStartArray() {
+		if (target().isPrimitiveArray()) {
+			stack.addLast(new StatePrimitiveArray(document, this, target()));
+			return;
+		}
+		final Object existing = document.reuse ? existing() : null;
 		final Collection value;
 		if (List.class.isAssignableFrom(target().klass())) {
-			value = new ArrayList();
+			value = !document.bind ? null : existing instanceof ArrayList ? (Collection) existing : new ArrayList();
 		} else if (Set.class.isAssignableFrom(target().klass())) {
-			value = new HashSet<>();
+			value = !document.bind ? null : existing instanceof HashSet ? (Collection) existing : new HashSet<>();
 		} else if (Deque.class.isAssignableFrom(target().klass())) {
-			value = new ArrayDeque<>();
+			value = !document.bind ? null : existing instanceof ArrayDeque ? (Collection) existing : new ArrayDeque<>();
 		} else {
 			super.eventStartArray();
 			throw new AssertionError();
 		}
 		produce(value);
-		stack.removeLast();
-		stack.addLast(new StateCollection(stack, target().parameters[0], value));
+		stack.addLast(new StateCollection(document, target().parameters[0], value, value != null && value == existing));
 	}
 
 	@Override
-	public void eventString(final String value) {
-		if (target().type == String.class || target().type == byte[].class) {
-			final Object value2;
-			if (target().field != null) {
-				if (target().type == String.class)
-					value2 = CheckJson.validateString(target().field, value);
-				else
-					value2 = CheckJson.validateBytes(target().field, value);
+	public void eventString(final JsonParser stream) throws IOException {
+		if (target().type == String.class && !document.bind) {
+			if (target().field != null)
+				CheckJson.validateString(target(), view(stream));
+			produce(null);
+		} else if (target().type == String.class) {
+			if (target().field != null &&
+					stream.getTextLength() > CheckJson.maxLength(CheckJson.getValid(target())))
+				// Reject from the parser's buffer without copying the value
+				CheckJson.validateString(target(), view(stream));
+			final String value = stream.getText();
+			if (target().field != null)
+				CheckJson.validateString(target(), value);
+			produce(document.bind ? value : null);
+		} else if (target().type == byte[].class) {
+			if (document.bind) {
+				final ByteArrayOutputStream out = new ByteArrayOutputStream();
+				CheckJson.readBinary(target(), stream, out);
+				produce(out.toByteArray());
 			} else {
-				value2 = value;
+				CheckJson.readBinary(target(), stream, null);
+				produce(null);
 			}
-			produce(value2);
 		} else
-			super.eventString(value);
+			super.eventString(stream);
+	}
+
+	private static CharBuffer view(final JsonParser stream) throws IOException {
+		return CharBuffer.wrap(stream.getTextCharacters(), stream.getTextOffset(), stream.getTextLength());
 	}
 
 	@Override
-	public void eventInt(final String value) {
+	public void eventInt(final JsonParser stream) throws IOException {
 		if (target().type == Integer.class || target().type == int.class) {
-			produce(CheckJson.validateInt(target().field, value));
+			produceInt(CheckJson.validateInt(target(), stream));
 		} else if (target().type == Long.class || target().type == long.class) {
-			produce(CheckJson.validateLong(target().field, value));
+			produceLong(CheckJson.validateLong(target(), stream));
 		} else
-			super.eventInt(value);
+			super.eventInt(stream);
 	}
 
 	@Override
-	public void eventFloat(final String value) {
+	public void eventFloat(final JsonParser stream) throws IOException {
 		if (target().type == Float.class || target().type == float.class) {
 			final float v;
 			try {
-				v = Float.parseFloat(value);
+				v = stream.getFloatValue();
 			} catch (final NumberFormatException e) {
-				throw new InternalValidationError("Unsupported float format [%s]", value);
-			}
-			if (target().field != null) {
-				final Valid valid = getValid(target().field);
-				if (valid.min() == Valid.Limit.EXCLUSIVE && v <= valid.minFloatValue())
-					throw new InternalValidationError("Value %s is below exclusive minimum %s",
-							v,
-							valid.minFloatValue()
-					);
-				if (valid.min() == Valid.Limit.INCLUSIVE && v < valid.minFloatValue())
-					throw new InternalValidationError("Value %s is below inclusive minimum %s",
-							v,
-							valid.minFloatValue()
-					);
-				if (valid.max() == Valid.Limit.EXCLUSIVE && v >= valid.maxFloatValue())
-					throw new InternalValidationError("Value %s is above exclusive maximum %s",
-							v,
-							valid.maxFloatValue()
-					);
-				if (valid.max() == Valid.Limit.INCLUSIVE && v > valid.maxFloatValue())
-					throw new InternalValidationError("Value %s is above inclusive maximum %s",
-							v,
-							valid.maxFloatValue()
-					);
+				throw new InternalValidationError(ValidationError.Code.FORMAT, "Unsupported float format [%s]", stream.getText());
 			}
-			produce(v);
+			if (target().field != null)
+				CheckJson.validateFloatRange(getValid(target()), v, true);
+			produceFloat(v);
 		} else if (target().type == Double.class || target().type == double.class) {
 			final double v;
 			try {
-				v = Double.parseDouble(value);
+				v = stream.getDoubleValue();
 			} catch (final NumberFormatException e) {
-				throw new InternalValidationError("Unsupported double format [%s]", value);
-			}
-			if (target().field != null) {
-				final Valid valid = getValid(target().field);
-				if (valid.min() == Valid.Limit.EXCLUSIVE && v <= valid.minFloatValue())
-					throw new InternalValidationError("Value %s is below exclusive minimum %s",
-							v,
-							valid.minFloatValue()
-					);
-				if (valid.min() == Valid.Limit.INCLUSIVE && v < valid.minFloatValue())
-					throw new InternalValidationError("Value %s is below inclusive minimum %s",
-							v,
-							valid.minFloatValue()
-					);
-				if (valid.max() == Valid.Limit.EXCLUSIVE && v >= valid.maxFloatValue())
-					throw new InternalValidationError("Value %s is above exclusive maximum %s",
-							v,
-							valid.maxFloatValue()
-					);
-				if (valid.max() == Valid.Limit.INCLUSIVE && v > valid.maxFloatValue())
-					throw new InternalValidationError("Value %s is above inclusive maximum %s",
-							v,
-							valid.maxFloatValue()
-					);
+				throw new InternalValidationError(ValidationError.Code.FORMAT, "Unsupported double format [%s]", stream.getText());
 			}
-			produce(v);
+			if (target().field != null)
+				CheckJson.validateFloatRange(getValid(target()), v, false);
+			produceDouble(v);
 		} else
-			super.eventFloat(value);
+			super.eventFloat(stream);
 	}
 
 	@Override
@@ -147,7 +168,7 @@ public abstract class StateValueBase extends State {
 		if (target().type != Boolean.class && target().type != boolean.class)
 			super.eventTrue();
 		else
-			produce(true);
+			produceBoolean(true);
 	}
 
 	@Override
@@ -155,12 +176,12 @@ public abstract class StateValueBase extends State {
 		if (target().type != Boolean.class && target().type != boolean.class)
 			super.eventFalse();
 		else
-			produce(false);
+			produceBoolean(false);
 	}
 
 	@Override
 	public void eventNull() {
-		final Valid valid = getValid(target().field);
+		final Valid valid = getValid(target());
 		if (!target().klass().isPrimitive() && (valid.nullable() || valid.optional())) {
 			if (valid.nullable())
 				produce(null);
@@ -1,20 +1,33 @@
 package com.zarbosoft.checkjson.internal;
 
+import com.zarbosoft.checkjson.BinarySink;
+import com.zarbosoft.checkjson.Lazy;
+import com.zarbosoft.checkjson.Valid;
+
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Stream;
 
 public class TypeInfo {
 
 	public final Type type;
 	public final TypeInfo[] parameters;
-	public final Field field;
+	/**
+	 * The declaring field as formatted by Field.toString, for messages.  Non-null if the type has field constraints.
+	 */
+	public final String field;
+	public final Valid valid;
+	public final Pattern pattern;
+	public final Accessor accessor;
 
-	private TypeInfo(final Field field, final Type target) {
+	private TypeInfo(final String field, final Valid valid, final Pattern pattern, final Type target) {
 		if (target instanceof ParameterizedType) {
 			this.type = ((ParameterizedType) target).getRawType();
 			parameters = Stream
@@ -23,41 +36,140 @@ public class TypeInfo {
 					.toArray(TypeInfo[]::new);
 		} else {
 			this.type = target;
-			this.parameters = null;
+			this.parameters = component(field, valid, pattern, target);
 		}
 		this.field = field;
+		this.valid = valid;
+		this.pattern = pattern;
+		this.accessor = null;
 	}
 
 	public TypeInfo(final Type target) {
-		this(null, target);
+		this(null, null, null, target);
 	}
 
 	public TypeInfo(final Type type, final TypeInfo... parameter) {
 		this.type = type;
 		this.parameters = parameter;
 		this.field = null;
+		this.valid = null;
+		this.pattern = null;
+		this.accessor = null;
 	}
 
 	public TypeInfo(final Field f) {
-		this.field = f;
+		this.field = f.toString();
+		this.valid = f.getAnnotation(Valid.class);
+		this.pattern = compile(field, valid);
+		this.accessor = MethodHandleAccessor.of(f);
 		this.type = f.getType();
 		if (f.getGenericType() instanceof ParameterizedType)
 			this.parameters = Stream
 					.of(((ParameterizedType) f.getGenericType()).getActualTypeArguments())
-					.map(type1 -> new TypeInfo(field, type1))
+					.map(type1 -> new TypeInfo(field, valid, pattern, type1))
 					.toArray(TypeInfo[]::new);
 		else
-			this.parameters = null;
+			this.parameters = component(field, valid, pattern, type);
+	}
+
+	/**
+	 * A field's type for generated binders, equivalent to {@link #TypeInfo(Field)}.
+	 *
+	 * @param field      See {@link #field}
+	 * @param valid      The field's constraints or null
+	 * @param accessor
+	 * @param type       The field's raw type
+	 * @param parameters Type arguments; for each argument pass the field and valid if the argument is a direct type
+	 *                   argument of the field's type.  Empty for primitive arrays.
+	 */
+	public TypeInfo(
+			final String field,
+			final Valid valid,
+			final Accessor accessor,
+			final Class<?> type,
+			final TypeInfo... parameters
+	) {
+		this.field = field;
+		this.valid = valid;
+		this.pattern = compile(field, valid);
+		this.accessor = accessor;
+		this.type = type;
+		this.parameters = parameters.length == 0 ? component(field, valid, pattern, type) : parameters;
+	}
+
+	private static Pattern compile(final String field, final Valid valid) {
+		if (valid == null || valid.pattern().isEmpty())
+			return null;
+		try {
+			return Pattern.compile(valid.pattern());
+		} catch (final PatternSyntaxException e) {
+			throw new AssertionError(String.format("Invalid pattern [%s] on field %s", valid.pattern(), field), e);
+		}
+	}
+
+	/**
+	 * Primitive arrays (other than byte[], which is read as base64) take their element type as the single parameter.
+	 */
+	private static TypeInfo[] component(final String field, final Valid valid, final Pattern pattern, final Type type) {
+		if (!isPrimitiveArray(type))
+			return null;
+		return new TypeInfo[] {new TypeInfo(field, valid, pattern, ((Class<?>) type).getComponentType())};
+	}
+
+	private static boolean isPrimitiveArray(final Type type) {
+		return type instanceof Class &&
+				type != byte[].class &&
+				((Class<?>) type).isArray() &&
+				((Class<?>) type).getComponentType().isPrimitive();
+	}
+
+	public boolean isPrimitiveArray() {
+		return isPrimitiveArray(type);
+	}
+
+	public boolean optional() {
+		return valid != null && valid.optional();
+	}
+
+	/**
+	 * @return true for fields that stream base64 into a sink rather than being set
+	 */
+	public boolean isBinarySink() {
+		return type instanceof Class && BinarySink.class.isAssignableFrom(klass());
+	}
+
+	/**
+	 * @return true for fields bound on first use, see {@link Lazy}
+	 */
+	public boolean isLazy() {
+		return type == Lazy.class;
 	}
 
 	public Class<?> klass() {
 		return (Class<?>) type;
 	}
 
+	/**
+	 * @return true if values of this type are bound as objects with their own ClassInfo
+	 */
+	public boolean isObject() {
+		if (!(type instanceof Class))
+			return false;
+		final Class<?> klass = klass();
+		return !klass.isPrimitive() &&
+				!klass.isArray() &&
+				klass != String.class &&
+				klass != Boolean.class &&
+				klass != Lazy.class &&
+				!BinarySink.class.isAssignableFrom(klass) &&
+				!Number.class.isAssignableFrom(klass) &&
+				!Collection.class.isAssignableFrom(klass);
+	}
+
 	public String friendlyType() {
 		if (type == String.class)
 			return "string";
-		if (type == byte[].class)
+		if (type == byte[].class || isBinarySink())
 			return "bytes";
 		if (type == Integer.class || type == int.class || type == Long.class || type == long.class)
 			return "int";
@@ -65,7 +177,8 @@ public class TypeInfo {
 			return "float";
 		if (type == Boolean.class || type == boolean.class)
 			return "bool";
-		if (List.class.isAssignableFrom(klass()) ||
+		if (klass().isArray() ||
+				List.class.isAssignableFrom(klass()) ||
 				Set.class.isAssignableFrom(klass()) ||
 				Deque.class.isAssignableFrom(klass()))
 			return "array";
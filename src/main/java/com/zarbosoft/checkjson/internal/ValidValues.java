@@ -0,0 +1,92 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.zarbosoft.checkjson.Valid;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Valid constraints captured at build time by generated binders, so they can be read without reflection.
+ */
+public class ValidValues implements Valid {
+	private final boolean optional;
+	private final boolean nullable;
+	private final Limit min;
+	private final Limit max;
+	private final int minValue;
+	private final int maxValue;
+	private final float minFloatValue;
+	private final float maxFloatValue;
+	private final String pattern;
+
+	public ValidValues(
+			final boolean optional,
+			final boolean nullable,
+			final Limit min,
+			final Limit max,
+			final int minValue,
+			final int maxValue,
+			final float minFloatValue,
+			final float maxFloatValue,
+			final String pattern
+	) {
+		this.optional = optional;
+		this.nullable = nullable;
+		this.min = min;
+		this.max = max;
+		this.minValue = minValue;
+		this.maxValue = maxValue;
+		this.minFloatValue = minFloatValue;
+		this.maxFloatValue = maxFloatValue;
+		this.pattern = pattern;
+	}
+
+	@Override
+	public boolean optional() {
+		return optional;
+	}
+
+	@Override
+	public boolean nullable() {
+		return nullable;
+	}
+
+	@Override
+	public Limit min() {
+		return min;
+	}
+
+	@Override
+	public Limit max() {
+		return max;
+	}
+
+	@Override
+	public int minValue() {
+		return minValue;
+	}
+
+	@Override
+	public int maxValue() {
+		return maxValue;
+	}
+
+	@Override
+	public float minFloatValue() {
+		return minFloatValue;
+	}
+
+	@Override
+	public float maxFloatValue() {
+		return maxFloatValue;
+	}
+
+	@Override
+	public String pattern() {
+		return pattern;
+	}
+
+	@Override
+	public Class<? extends Annotation> annotationType() {
+		return Valid.class;
+	}
+}
@@ -0,0 +1,128 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AccessorTest {
+	public static class Primitives {
+		@JsonProperty
+		@Valid
+		public int i;
+
+		@JsonProperty
+		@Valid
+		public long l;
+
+		@JsonProperty
+		@Valid
+		public float f;
+
+		@JsonProperty
+		@Valid
+		public double d;
+
+		@JsonProperty
+		@Valid
+		public boolean b;
+	}
+
+	public static class Boxed {
+		@JsonProperty
+		@Valid(nullable = true)
+		public Integer i;
+
+		@JsonProperty
+		@Valid
+		public Long l;
+
+		@JsonProperty
+		@Valid
+		public Float f;
+
+		@JsonProperty
+		@Valid
+		public Double d;
+
+		@JsonProperty
+		@Valid
+		public Boolean b;
+
+		@JsonProperty
+		@Valid(nullable = true)
+		public Primitives child;
+	}
+
+	public static class NoConstructor {
+		@JsonProperty
+		@Valid
+		public int i;
+
+		public NoConstructor(final int i) {
+			this.i = i;
+		}
+	}
+
+	public static class Holder {
+		@JsonProperty
+		@Valid
+		public NoConstructor child;
+	}
+
+	private static final String VALUES = "{\"i\": -3, \"l\": 5000000000, \"f\": 1.5, \"d\": -0.25, \"b\": true}";
+
+	@Test
+	public void primitives() throws Exception {
+		final Primitives result = Inputs.read(CheckJson.reader(Primitives.class), VALUES);
+		assertEquals(-3, result.i);
+		assertEquals(5000000000L, result.l);
+		assertEquals(1.5f, result.f, 0);
+		assertEquals(-0.25, result.d, 0);
+		assertTrue(result.b);
+	}
+
+	@Test
+	public void boxed() throws Exception {
+		final Boxed result = Inputs.read(CheckJson.reader(Boxed.class),
+				"{\"i\": -3, \"l\": 5000000000, \"f\": 1.5, \"d\": -0.25, \"b\": false, \"child\": " + VALUES + "}"
+		);
+		assertEquals(Integer.valueOf(-3), result.i);
+		assertEquals(Long.valueOf(5000000000L), result.l);
+		assertEquals(Float.valueOf(1.5f), result.f);
+		assertEquals(Double.valueOf(-0.25), result.d);
+		assertFalse(result.b);
+		assertEquals(-3, result.child.i);
+	}
+
+	@Test
+	public void nulls() throws Exception {
+		final Boxed result = Inputs.read(CheckJson.reader(Boxed.class),
+				"{\"i\": null, \"l\": 1, \"f\": 1.0, \"d\": 1.0, \"b\": true, \"child\": null}"
+		);
+		assertNull(result.i);
+		assertNull(result.child);
+	}
+
+	@Test
+	public void typeMismatch() throws Exception {
+		final ValidationError error =
+				Inputs.error(CheckJson.reader(Primitives.class), "{\"i\": 1, \"l\": 1, \"f\": 1.0, \"d\": 1.0, \"b\": 1}");
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, error.getCode());
+		assertEquals("$.b", error.getPath());
+	}
+
+	@Test
+	public void noConstructor() throws Exception {
+		try {
+			CheckJson.read("{\"child\": {\"i\": 1}}", Holder.class);
+			fail();
+		} catch (final AssertionError e) {
+			assertTrue(e.getMessage().contains("NoConstructor"));
+		}
+	}
+}
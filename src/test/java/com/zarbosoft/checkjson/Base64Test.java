@@ -0,0 +1,101 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class Base64Test {
+	public static class Bytes {
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 1, max = Valid.Limit.INCLUSIVE, maxValue = 5)
+		public byte[] data;
+	}
+
+	public static class Sink implements BinarySink {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		@Override
+		public OutputStream open() {
+			return out;
+		}
+	}
+
+	public static class Streamed {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 5)
+		public Sink data = new Sink();
+	}
+
+	public static class FinalStreamed {
+		@JsonProperty
+		@Valid(optional = true)
+		public final Sink data = new Sink();
+
+		@JsonProperty
+		@Valid(optional = true)
+		public int n;
+	}
+
+	private static final CheckJsonReader<Bytes> reader = CheckJson.reader(Bytes.class);
+
+	@Test
+	public void decode() throws Exception {
+		assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), Inputs.read(reader, "{\"data\": \"aGVsbG8=\"}").data);
+	}
+
+	@Test
+	public void invalid() throws Exception {
+		final ValidationError error = Inputs.error(reader, "{\"data\": \"aGV!bG8=\"}");
+		assertEquals(ValidationError.Code.FORMAT, error.getCode());
+		assertEquals("$.data", error.getPath());
+		// The parser's description is kept out of the message
+		assertEquals("Value is not valid base64\nat $.data", error.getMessage());
+		assertTrue(error.getCause().getCause() instanceof IllegalArgumentException);
+	}
+
+	@Test
+	public void tooLong() throws Exception {
+		final ValidationError error = Inputs.error(reader, "{\"data\": \"aGVsbG8h\"}");
+		assertEquals(ValidationError.Code.LENGTH, error.getCode());
+	}
+
+	@Test
+	public void tooShort() throws Exception {
+		assertEquals(ValidationError.Code.LENGTH, Inputs.error(reader, "{\"data\": \"\"}").getCode());
+	}
+
+	@Test
+	public void sink() throws Exception {
+		final CheckJsonReader<Streamed> streamed = CheckJson.reader(Streamed.class);
+		assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8),
+				Inputs.read(streamed, "{\"data\": \"aGVsbG8=\"}").data.out.toByteArray()
+		);
+		assertEquals(ValidationError.Code.LENGTH, Inputs.error(streamed, "{\"data\": \"aGVsbG8h\"}").getCode());
+	}
+
+	/**
+	 * Sinks are only read from the field, so it can be final, and readInto keeps them when they're missing
+	 */
+	@Test
+	public void finalSink() throws Exception {
+		final CheckJsonReader<FinalStreamed> streamed = CheckJson.reader(FinalStreamed.class);
+		assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8),
+				Inputs.read(streamed, "{\"data\": \"aGVsbG8=\"}").data.out.toByteArray()
+		);
+		final FinalStreamed into = new FinalStreamed();
+		final Sink sink = into.data;
+		assertSame(into, streamed.readInto("{\"data\": \"aGk=\"}", into));
+		assertSame(into, streamed.readInto("{\"n\": 1}", into));
+		assertSame(sink, into.data);
+		assertArrayEquals("hi".getBytes(StandardCharsets.UTF_8), sink.out.toByteArray());
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, Inputs.error(streamed, "{\"data\": 4}").getCode());
+	}
+}
@@ -0,0 +1,43 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CheckJsonReaderTest {
+	public static class Simple {
+		@JsonProperty
+		@Valid
+		public int x;
+	}
+
+	@Test
+	public void suppliedFactoryUnchanged() throws Exception {
+		final JsonFactory factory = new JsonFactory();
+		final CheckJsonReader<Simple> reader = CheckJson.reader(factory, Simple.class);
+		assertTrue(factory.isEnabled(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+		assertEquals(4, reader.read("{\"x\": 4}").x);
+	}
+
+	@Test
+	public void streamLeftOpen() throws Exception {
+		final boolean[] closed = {false};
+		final ByteArrayInputStream stream =
+				new ByteArrayInputStream("{\"x\": 4}".getBytes(StandardCharsets.UTF_8)) {
+					@Override
+					public void close() {
+						closed[0] = true;
+					}
+				};
+		assertEquals(4, CheckJson.reader(new JsonFactory(), Simple.class).read(stream).x);
+		assertFalse(closed[0]);
+	}
+}
@@ -0,0 +1,150 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FeederTest {
+	public static class Message {
+		@JsonProperty
+		@Valid
+		public String text;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Integer> values;
+	}
+
+	private static final CheckJsonReader<Message> reader = CheckJson.reader(Message.class);
+	private static final byte[] JSON =
+			"{\"text\": \"\u00e9\u4e2d\ud83d\ude00\", \"values\": [1, 22, 333]}".getBytes(StandardCharsets.UTF_8);
+
+	private static void check(final Message message) {
+		assertEquals("\u00e9\u4e2d\ud83d\ude00", message.text);
+		assertEquals(333, (int) message.values.get(2));
+	}
+
+	private static ValidationError error(final CheckJsonFeeder<?> feeder, final byte[] data) throws Exception {
+		try {
+			feeder.feed(data);
+			feeder.finish();
+		} catch (final ValidationError e) {
+			return e;
+		}
+		throw new AssertionError("Expected a ValidationError");
+	}
+
+	/**
+	 * Chunk boundaries can fall anywhere, including inside multi-byte characters and tokens
+	 */
+	@Test
+	public void byteAtATime() throws Exception {
+		try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+			for (int i = 0; i < JSON.length; ++i)
+				assertEquals(i == JSON.length - 1, feeder.feed(JSON, i, 1));
+			check(feeder.finish());
+		}
+	}
+
+	@Test
+	public void buffers() throws Exception {
+		final ByteBuffer heap = ByteBuffer.allocate(JSON.length + 8);
+		heap.position(4);
+		final ByteBuffer slice = heap.slice();
+		slice.put(JSON).flip();
+		final ByteBuffer direct = ByteBuffer.allocateDirect(JSON.length);
+		direct.put(JSON).flip();
+		for (final ByteBuffer buffer : new ByteBuffer[] {slice, direct}) {
+			try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+				assertTrue(feeder.feed(buffer));
+				assertFalse(buffer.hasRemaining());
+				check(feeder.finish());
+			}
+		}
+	}
+
+	@Test
+	public void trailing() throws Exception {
+		try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+			assertTrue(feeder.feed(JSON));
+			assertTrue(feeder.feed(new byte[0]));
+			assertTrue(feeder.feed(" \n".getBytes(StandardCharsets.UTF_8)));
+			check(feeder.finish());
+		}
+		try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+			feeder.feed(JSON);
+			final ValidationError error = error(feeder, "{}".getBytes(StandardCharsets.UTF_8));
+			assertEquals(ValidationError.Code.SYNTAX, error.getCode());
+		}
+	}
+
+	@Test
+	public void incomplete() throws Exception {
+		try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+			final ValidationError error = error(feeder, "{\"text\": \"a\", \"values\": [1".getBytes(StandardCharsets.UTF_8));
+			assertEquals(ValidationError.Code.SYNTAX, error.getCode());
+		}
+		try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+			assertEquals(ValidationError.Code.SYNTAX, error(feeder, new byte[0]).getCode());
+		}
+	}
+
+	/**
+	 * Errors are reported from the chunk that completes the bad value and the feeder can't be used after
+	 */
+	@Test
+	public void failed() throws Exception {
+		try (final CheckJsonFeeder<Message> feeder = reader.feeder()) {
+			assertFalse(feeder.feed("{\"text\": \"a\", \"values\": [1, ".getBytes(StandardCharsets.UTF_8)));
+			try {
+				feeder.feed("true, ".getBytes(StandardCharsets.UTF_8));
+				fail();
+			} catch (final ValidationError e) {
+				assertEquals(ValidationError.Code.TYPE_MISMATCH, e.getCode());
+				assertEquals("$.values[1]", e.getPath());
+			}
+			try {
+				feeder.feed("]}".getBytes(StandardCharsets.UTF_8));
+				fail();
+			} catch (final IllegalStateException e) {
+				// Expected
+			}
+			try {
+				feeder.finish();
+				fail();
+			} catch (final IllegalStateException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void maxBytes() throws Exception {
+		try (final CheckJsonFeeder<Message> feeder = reader.withMaxBytes(JSON.length).feeder()) {
+			feeder.feed(JSON);
+			check(feeder.finish());
+		}
+		try (final CheckJsonFeeder<Message> feeder = reader.withMaxBytes(JSON.length - 1).feeder()) {
+			feeder.feed(JSON, 0, 10);
+			final ValidationError error = error(feeder, Arrays.copyOfRange(JSON, 10, JSON.length));
+			assertEquals(ValidationError.Code.LIMIT, error.getCode());
+		}
+	}
+
+	@Test
+	public void shortcut() throws Exception {
+		try (final CheckJsonFeeder<Message> feeder = CheckJson.feeder(Message.class)) {
+			feeder.feed(JSON);
+			check(feeder.finish());
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class FieldOrderTest {
+	public static class Inner {
+		@JsonProperty
+		@Valid
+		public String name;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Inner inner;
+	}
+
+	public static class Outer {
+		@JsonProperty
+		@Valid
+		public int first;
+
+		@JsonProperty("na\u00efve")
+		@Valid
+		public String second;
+
+		@JsonProperty
+		@Valid
+		public List<Inner> third;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public String name;
+	}
+
+	private static final CheckJsonReader<Outer> reader = CheckJson.reader(Outer.class);
+
+	private static void check(final Outer outer) {
+		assertEquals(1, outer.first);
+		assertEquals("two", outer.second);
+		assertEquals("x", outer.third.get(0).name);
+		assertEquals("y", outer.third.get(0).inner.name);
+		assertEquals("z", outer.third.get(1).name);
+	}
+
+	private static final String FIRST = "\"first\": 1";
+	private static final String SECOND = "\"na\u00efve\": \"two\"";
+	private static final String THIRD = "\"third\": [{\"name\": \"x\", \"inner\": {\"name\": \"y\"}}, {\"name\": \"z\"}]";
+
+	@Test
+	public void declared() throws Exception {
+		check(Inputs.read(reader, String.format("{%s, %s, %s}", FIRST, SECOND, THIRD)));
+	}
+
+	/**
+	 * Names that don't match the prediction fall back to a lookup
+	 */
+	@Test
+	public void outOfOrder() throws Exception {
+		check(Inputs.read(reader, String.format("{%s, %s, %s}", THIRD, SECOND, FIRST)));
+		check(Inputs.read(reader, String.format("{%s, %s, %s}", SECOND, FIRST, THIRD)));
+		check(Inputs.read(reader, String.format("{%s, %s, \"name\": \"n\", %s}", FIRST, THIRD, SECOND)));
+	}
+
+	/**
+	 * Escaped names don't match the encoded prediction byte for byte but are the same name
+	 */
+	@Test
+	public void escaped() throws Exception {
+		check(Inputs.read(reader, String.format("{\"fir\\u0073t\": 1, \"na\\u00efve\": \"two\", %s}", THIRD)));
+	}
+
+	/**
+	 * A name that starts like the predicted one isn't mistaken for it
+	 */
+	@Test
+	public void prefix() throws Exception {
+		final ValidationError error = Inputs.error(reader, String.format("{%s, \"na\u00efv\": \"two\", %s}", FIRST, THIRD));
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD, error.getCode());
+		assertEquals("na\u00efv", error.getField());
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD,
+				Inputs.error(reader, String.format("{%s, \"na\u00efvee\": \"two\", %s}", FIRST, THIRD)).getCode()
+		);
+	}
+
+	/**
+	 * A repeated field isn't accepted as the next prediction
+	 */
+	@Test
+	public void repeated() throws Exception {
+		final ValidationError error = Inputs.error(reader, String.format("{%s, %s, %s, %s}", FIRST, SECOND, SECOND, THIRD));
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD, error.getCode());
+		assertEquals("$.na\u00efve", error.getPath());
+	}
+}
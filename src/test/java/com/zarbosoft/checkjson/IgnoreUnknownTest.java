@@ -0,0 +1,90 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class IgnoreUnknownTest {
+	public static class Strict {
+		@JsonProperty
+		@Valid
+		public int n;
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class Loose {
+		@JsonProperty
+		@Valid
+		public int n;
+	}
+
+	@JsonIgnoreProperties({"meta"})
+	public static class Named {
+		@JsonProperty
+		@Valid
+		public int n;
+	}
+
+	private static final String JUNK = "{\"a\": [1, 2.5, \"s\", {\"b\": [[], {}]}, true, false, null]}";
+
+	@Test
+	public void rejectedByDefault() throws Exception {
+		final ValidationError error = Inputs.error(CheckJson.reader(Strict.class), "{\"n\": 1, \"other\": 2}");
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD, error.getCode());
+	}
+
+	@Test
+	public void reader() throws Exception {
+		final CheckJsonReader<Strict> reader = CheckJson.reader(Strict.class).withIgnoreUnknown(true);
+		assertEquals(3, Inputs.read(reader, "{\"x\": " + JUNK + ", \"n\": 3, \"y\": \"z\"}").n);
+	}
+
+	@Test
+	public void annotated() throws Exception {
+		assertEquals(3, Inputs.read(CheckJson.reader(Loose.class), "{\"x\": " + JUNK + ", \"n\": 3}").n);
+		assertEquals(3, Inputs.read(CheckJson.reader(Named.class), "{\"meta\": " + JUNK + ", \"n\": 3}").n);
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD,
+				Inputs.error(CheckJson.reader(Named.class), "{\"other\": 1, \"n\": 3}").getCode()
+		);
+	}
+
+	/**
+	 * Skipped values don't count against the limits on either path
+	 */
+	@Test
+	public void limits() throws Exception {
+		// Start, field, value, skipped field, end
+		final CheckJsonReader<Strict> reader =
+				CheckJson.reader(Strict.class).withIgnoreUnknown(true).withMaxTokens(5).withMaxDepth(1);
+		assertEquals(3, Inputs.read(reader, "{\"n\": 3, \"x\": " + JUNK + "}").n);
+		assertEquals(ValidationError.Code.LIMIT,
+				Inputs.error(reader, "{\"n\": 3, \"x\": " + JUNK + ", \"y\": 1}").getCode()
+		);
+	}
+
+	@Test
+	public void stats() throws Exception {
+		final List<DocumentStats> stats = new ArrayList<>();
+		final CheckJsonReader<Strict> reader = CheckJson
+				.reader(Strict.class)
+				.withIgnoreUnknown(true)
+				.withListener((type, document, error) -> stats.add(document));
+		final byte[] json = ("{\"x\": " + JUNK + ", \"n\": 3}").getBytes(StandardCharsets.UTF_8);
+		reader.read(json);
+		Inputs.feed(reader, json);
+		assertEquals(stats.get(0).tokens, stats.get(1).tokens);
+		assertEquals(stats.get(0).maxDepth, stats.get(1).maxDepth);
+	}
+
+	@Test
+	public void truncatedSkip() throws Exception {
+		final CheckJsonReader<Strict> reader = CheckJson.reader(Strict.class).withIgnoreUnknown(true);
+		assertEquals(ValidationError.Code.SYNTAX, Inputs.error(reader, "{\"n\": 3, \"x\": {\"a\": [1, 2").getCode());
+	}
+}
@@ -0,0 +1,78 @@
+package com.zarbosoft.checkjson;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs one document through the blocking and non-blocking read paths so tests can check they agree.
+ */
+final class Inputs {
+	private Inputs() {
+	}
+
+	/**
+	 * @return The result of a blocking read from a String, after checking every other input reads it too
+	 */
+	static <T> T read(final CheckJsonReader<T> reader, final String json) throws IOException {
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		reader.read(bytes);
+		reader.read(new ByteArrayInputStream(bytes));
+		feed(reader, bytes);
+		if (reader.validate(json) != null)
+			fail("Validation rejected a document that reads");
+		return reader.read(json);
+	}
+
+	/**
+	 * @return The error from a blocking read from a String, after checking every other input fails the same way
+	 */
+	static ValidationError error(final CheckJsonReader<?> reader, final String json) throws IOException {
+		final ValidationError expected;
+		try {
+			reader.read(json);
+			throw new AssertionError("Expected a ValidationError");
+		} catch (final ValidationError e) {
+			expected = e;
+		}
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		check(expected, () -> reader.read(bytes));
+		check(expected, () -> reader.read(new ByteArrayInputStream(bytes)));
+		check(expected, () -> feed(reader, bytes));
+		final ValidationError validated = reader.validate(json);
+		if (validated == null)
+			fail("Validation accepted a document that doesn't read");
+		assertEquals(expected.getCode(), validated.getCode());
+		return expected;
+	}
+
+	/**
+	 * Feed the document a few bytes at a time.
+	 */
+	static <T> T feed(final CheckJsonReader<T> reader, final byte[] bytes) throws IOException {
+		try (final CheckJsonFeeder<T> feeder = reader.feeder()) {
+			for (int i = 0; i < bytes.length; i += 3)
+				feeder.feed(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 3)));
+			return feeder.finish();
+		}
+	}
+
+	private interface Read {
+		void read() throws IOException;
+	}
+
+	private static void check(final ValidationError expected, final Read read) throws IOException {
+		try {
+			read.read();
+		} catch (final ValidationError e) {
+			assertEquals(expected.getCode(), e.getCode());
+			assertEquals(expected.getPath(), e.getPath());
+			return;
+		}
+		fail(String.format("Expected %s at %s", expected.getCode(), expected.getPath()));
+	}
+}
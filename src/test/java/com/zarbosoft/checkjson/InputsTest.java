@@ -0,0 +1,140 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class InputsTest {
+	public static class Point {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 100)
+		public int x;
+
+		@JsonProperty
+		@Valid
+		public String label;
+	}
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private static final CheckJsonReader<Point> reader = CheckJson.reader(Point.class);
+	private static final String JSON = "{\"x\": 4, \"label\": \"here\"}";
+	private static final String BAD = "{\"x\": 400, \"label\": \"here\"}";
+
+	private static void check(final Point point) {
+		assertEquals(4, point.x);
+		assertEquals("here", point.label);
+	}
+
+	private static byte[] padded(final String json) {
+		return ("[[[" + json + "]]]").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void slice() throws Exception {
+		final byte[] bytes = padded(JSON);
+		check(reader.read(bytes, 3, bytes.length - 6));
+		check(CheckJson.read(bytes, 3, bytes.length - 6, Point.class));
+		assertNull(reader.validate(bytes, 3, bytes.length - 6));
+	}
+
+	/**
+	 * Reading leaves the buffer's position alone, whether it's backed by an array or not
+	 */
+	@Test
+	public void buffers() throws Exception {
+		final ByteBuffer heap = ByteBuffer.wrap(padded(JSON));
+		heap.position(3).limit(heap.capacity() - 3);
+		final ByteBuffer sliced = heap.slice();
+		final byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+		final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+		direct.position(2);
+		direct.put(bytes).position(2);
+		for (final ByteBuffer buffer : new ByteBuffer[] {heap, sliced, direct}) {
+			final int position = buffer.position();
+			check(reader.read(buffer));
+			check(CheckJson.read(buffer, Point.class));
+			assertNull(reader.validate(buffer));
+			assertEquals(position, buffer.position());
+		}
+	}
+
+	@Test
+	public void files() throws Exception {
+		final Path path = folder.newFile().toPath();
+		Files.write(path, ("  " + JSON).getBytes(StandardCharsets.UTF_8));
+		check(reader.read(path));
+		check(CheckJson.read(path, Point.class));
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			channel.position(2);
+			check(reader.read(channel));
+			check(CheckJson.read(channel, Point.class));
+		}
+	}
+
+	/**
+	 * Errors in a slice have the same path as from a String
+	 */
+	@Test
+	public void errors() throws Exception {
+		final byte[] bytes = padded(BAD);
+		final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).position(3).limit(bytes.length - 3);
+		final Path path = folder.newFile().toPath();
+		Files.write(path, BAD.getBytes(StandardCharsets.UTF_8));
+		for (final Read read : new Read[] {
+				() -> reader.read(bytes, 3, bytes.length - 6),
+				() -> reader.read(ByteBuffer.wrap(bytes, 3, bytes.length - 6)),
+				() -> reader.read(direct),
+				() -> reader.read(path)
+		}) {
+			final ValidationError error = error(read);
+			assertEquals(ValidationError.Code.RANGE, error.getCode());
+			assertEquals("$.x", error.getPath());
+		}
+	}
+
+	@Test
+	public void trailing() throws Exception {
+		final byte[] bytes = (JSON + " {}").getBytes(StandardCharsets.UTF_8);
+		assertEquals(ValidationError.Code.SYNTAX, error(() -> reader.read(ByteBuffer.wrap(bytes))).getCode());
+		check(reader.read(bytes, 0, JSON.length()));
+	}
+
+	/**
+	 * Inputs of known size are rejected before parsing
+	 */
+	@Test
+	public void maxBytes() throws Exception {
+		final CheckJsonReader<Point> limited = reader.withMaxBytes(JSON.length() - 1);
+		final Path path = folder.newFile().toPath();
+		Files.write(path, JSON.getBytes(StandardCharsets.UTF_8));
+		assertEquals(ValidationError.Code.LIMIT, error(() -> limited.read(path)).getCode());
+		check(reader.withMaxBytes(JSON.length()).read(path));
+	}
+
+	private interface Read {
+		void read() throws Exception;
+	}
+
+	private static ValidationError error(final Read read) throws Exception {
+		try {
+			read.read();
+		} catch (final ValidationError e) {
+			return e;
+		}
+		throw new AssertionError("Expected a ValidationError");
+	}
+}
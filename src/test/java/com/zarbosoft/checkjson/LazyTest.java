@@ -0,0 +1,219 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class LazyTest {
+	public static class Payload {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 10)
+		public int x;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public String s;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<List<Integer>> nested;
+	}
+
+	public static class Root {
+		@JsonProperty
+		@Valid
+		public int n;
+
+		@JsonProperty
+		@Valid
+		public Lazy<Payload> payload;
+	}
+
+	public static class Many {
+		@JsonProperty
+		@Valid
+		public List<Lazy<Payload>> payloads;
+	}
+
+	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+	@JsonSubTypes({@JsonSubTypes.Type(value = Boxed.class, name = "boxed")})
+	public interface Event {
+	}
+
+	public static class Boxed implements Event {
+		@JsonProperty
+		@Valid
+		public Lazy<Payload> payload;
+	}
+
+	public static class Events {
+		@JsonProperty
+		@Valid
+		public Event event;
+	}
+
+	private static final CheckJsonReader<Root> reader = CheckJson.reader(Root.class);
+	private static final String VALID = "{\"payload\": {\"s\": \"\u00e9\", \"x\": 3}, \"n\": 1}";
+	private static final String INVALID = "{\"n\": 1, \"payload\": {\"s\": \"a\", \"x\": 11}}";
+
+	private static void check(final Root root) {
+		assertEquals(1, root.n);
+		assertEquals(3, root.payload.get().x);
+		assertEquals("\u00e9", root.payload.get().s);
+	}
+
+	@Test
+	public void inputs() throws Exception {
+		check(Inputs.read(reader, VALID));
+		final byte[] bytes = VALID.getBytes(StandardCharsets.UTF_8);
+		check(reader.read(bytes));
+		check(reader.read(ByteBuffer.wrap(bytes)));
+		final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		check(reader.read(direct));
+		check(reader.read(new ByteArrayInputStream(bytes)));
+		check(Inputs.feed(reader, bytes));
+	}
+
+	/**
+	 * Offsets into a slice are relative to the slice
+	 */
+	@Test
+	public void slice() throws Exception {
+		final byte[] bytes = ("xxxx" + VALID + "yy").getBytes(StandardCharsets.UTF_8);
+		check(reader.read(bytes, 4, bytes.length - 6));
+	}
+
+	/**
+	 * UTF-16 and UTF-32 input is parsed from chars and has no byte offsets to slice by
+	 */
+	@Test
+	public void wideEncodings() throws Exception {
+		for (final Charset charset : new Charset[] {
+				StandardCharsets.UTF_16BE, StandardCharsets.UTF_16LE, Charset.forName("UTF-32BE"), Charset.forName("UTF-32LE")
+		}) {
+			final byte[] bytes = VALID.getBytes(charset);
+			check(reader.read(bytes));
+			check(CheckJson.read(bytes, Root.class));
+			check(reader.read(new ByteArrayInputStream(bytes)));
+			assertNull(reader.validate(bytes, 0, bytes.length));
+		}
+	}
+
+	@Test
+	public void errorFromGet() throws Exception {
+		for (final Root root : new Root[] {
+				reader.read(INVALID),
+				reader.read(INVALID.getBytes(StandardCharsets.UTF_8)),
+				reader.read(INVALID.getBytes(StandardCharsets.UTF_16BE)),
+				reader.read(new ByteArrayInputStream(INVALID.getBytes(StandardCharsets.UTF_8))),
+				Inputs.feed(reader, INVALID.getBytes(StandardCharsets.UTF_8))
+		}) {
+			final ValidationError error;
+			try {
+				root.payload.get();
+				fail();
+				return;
+			} catch (final ValidationError e) {
+				error = e;
+			}
+			assertEquals(ValidationError.Code.RANGE, error.getCode());
+			assertEquals("$.payload.x", error.getPath());
+			// The error is kept and rethrown
+			try {
+				root.payload.get();
+				fail();
+			} catch (final ValidationError e) {
+				assertSame(error, e);
+			}
+		}
+	}
+
+	@Test
+	public void cached() throws Exception {
+		final Root root = reader.read(VALID);
+		assertSame(root.payload.get(), root.payload.get());
+	}
+
+	/**
+	 * Only syntax is checked when reading or validating, the object's own constraints wait for get()
+	 */
+	@Test
+	public void deferred() throws Exception {
+		assertNull(reader.validate(INVALID));
+		assertEquals(ValidationError.Code.SYNTAX,
+				Inputs.error(reader, "{\"n\": 1, \"payload\": {\"x\": 3,}}").getCode()
+		);
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, Inputs.error(reader, "{\"n\": 1, \"payload\": 3}").getCode());
+	}
+
+	/**
+	 * The object's contents count against the limits when it's bound, not when the document is read
+	 */
+	@Test
+	public void limits() throws Exception {
+		final CheckJsonReader<Root> limited = reader.withMaxDepth(3);
+		final Root root = Inputs.read(limited, "{\"n\": 1, \"payload\": {\"x\": 3, \"nested\": [[1]]}}");
+		try {
+			root.payload.get();
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.LIMIT, e.getCode());
+		}
+	}
+
+	@Test
+	public void list() throws Exception {
+		final Many many = Inputs.read(CheckJson.reader(Many.class),
+				"{\"payloads\": [{\"x\": 1}, {\"x\": 2}, {\"x\": 12}]}"
+		);
+		assertEquals(1, many.payloads.get(0).get().x);
+		assertEquals(2, many.payloads.get(1).get().x);
+		try {
+			many.payloads.get(2).get();
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals("$.payloads[2].x", e.getPath());
+		}
+	}
+
+	@Test
+	public void polymorphic() throws Exception {
+		final CheckJsonReader<Events> events = CheckJson.reader(Events.class);
+		for (final String json : new String[] {
+				"{\"event\": {\"type\": \"boxed\", \"payload\": {\"x\": 4}}}",
+				"{\"event\": {\"payload\": {\"x\": 4}, \"type\": \"boxed\"}}"
+		})
+			assertEquals(4, ((Boxed) Inputs.read(events, json).event).payload.get().x);
+	}
+
+	@Test
+	public void write() throws Exception {
+		final Root root = new Root();
+		root.n = 1;
+		final Payload payload = new Payload();
+		payload.x = 5;
+		root.payload = Lazy.of(payload);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CheckJson.write(out, root);
+		assertEquals(5, reader.read(out.toByteArray()).payload.get().x);
+
+		// Values read and not yet bound are written too
+		out.reset();
+		CheckJson.write(out, reader.read(VALID));
+		check(reader.read(out.toByteArray()));
+	}
+}
@@ -0,0 +1,100 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class LimitsTest {
+	@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 2)
+	public static class Item {
+		@JsonProperty
+		@Valid
+		public int x;
+	}
+
+	public static class Root {
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Item> items;
+
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 4)
+		public String name;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Root child;
+	}
+
+	private static final CheckJsonReader<Root> reader = CheckJson.reader(Root.class);
+
+	@Test
+	public void collectionSize() throws Exception {
+		assertEquals(2, Inputs.read(reader, "{\"items\": [{\"x\": 1}, {\"x\": 2}]}").items.size());
+		final ValidationError error = Inputs.error(reader, "{\"items\": [{\"x\": 1}, {\"x\": 2}, {\"x\": 3}, {]}");
+		assertEquals(ValidationError.Code.SIZE, error.getCode());
+		// Rejected at the first element past the limit, before the syntax error after it
+		assertEquals("$.items[2]", error.getPath());
+	}
+
+	@Test
+	public void stringLength() throws Exception {
+		assertEquals("abcd", Inputs.read(reader, "{\"name\": \"abcd\"}").name);
+		final ValidationError error = Inputs.error(reader, "{\"name\": \"abcde\"}");
+		assertEquals(ValidationError.Code.LENGTH, error.getCode());
+		assertEquals("$.name", error.getPath());
+	}
+
+	@Test
+	public void depth() throws Exception {
+		final CheckJsonReader<Root> limited = reader.withMaxDepth(2);
+		Inputs.read(limited, "{\"child\": {}}");
+		final ValidationError error = Inputs.error(limited, "{\"child\": {\"child\": {}}}");
+		assertEquals(ValidationError.Code.LIMIT, error.getCode());
+		assertEquals("$.child.child", error.getPath());
+	}
+
+	@Test
+	public void tokens() throws Exception {
+		// Start, field, value, end
+		final CheckJsonReader<Root> limited = reader.withMaxTokens(4);
+		Inputs.read(limited, "{\"name\": \"a\"}");
+		assertEquals(ValidationError.Code.LIMIT, Inputs.error(limited, "{\"name\": \"a\", \"child\": {}}").getCode());
+	}
+
+	/**
+	 * Inputs of known size are rejected before parsing, streams once the limit is passed, so only the code matches
+	 */
+	@Test
+	public void bytes() throws Exception {
+		final CheckJsonReader<Root> limited = reader.withMaxBytes(13);
+		Inputs.read(limited, "{\"name\": \"a\"}");
+		final String json = "{\"name\": \"ab\"}";
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		assertLimit(() -> limited.read(json));
+		assertLimit(() -> limited.read(bytes));
+		assertLimit(() -> limited.read(new ByteArrayInputStream(bytes)));
+		assertLimit(() -> Inputs.feed(limited, bytes));
+		assertEquals(ValidationError.Code.LIMIT, limited.validate(json).getCode());
+	}
+
+	private interface Read {
+		void read() throws IOException;
+	}
+
+	private static void assertLimit(final Read read) throws IOException {
+		try {
+			read.read();
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.LIMIT, e.getCode());
+		}
+	}
+}
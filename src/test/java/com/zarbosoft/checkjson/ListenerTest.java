@@ -0,0 +1,247 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ListenerTest {
+	public static class Item {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 3)
+		public List<Integer> values;
+	}
+
+	private static final class Recorded {
+		final Class<?> rootType;
+		final DocumentStats stats;
+		final ValidationError error;
+
+		Recorded(final Class<?> rootType, final DocumentStats stats, final ValidationError error) {
+			this.rootType = rootType;
+			this.stats = stats;
+			this.error = error;
+		}
+	}
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<Recorded> recorded = new ArrayList<>();
+	private final CheckJsonReader<Item> reader = CheckJson
+			.reader(Item.class)
+			.withListener((rootType, stats, error) -> recorded.add(new Recorded(rootType, stats, error)));
+
+	private static final String JSON = "{\"values\": [1, 2, 3]}";
+
+	/**
+	 * Each input reports the document once with the same measurements
+	 */
+	@Test
+	public void stats() throws Exception {
+		final byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+		reader.read(JSON);
+		reader.read(bytes);
+		reader.read(new ByteArrayInputStream(bytes));
+		Inputs.feed(reader, bytes);
+		// Chunks fed from an offset in a larger array
+		final byte[] padded = ("xx" + JSON).getBytes(StandardCharsets.UTF_8);
+		try (final CheckJsonFeeder<Item> feeder = reader.feeder()) {
+			for (int i = 2; i < padded.length; i += 4)
+				feeder.feed(padded, i, Math.min(4, padded.length - i));
+			feeder.finish();
+		}
+		assertNull(reader.validate(JSON));
+		assertEquals(6, recorded.size());
+		for (final Recorded document : recorded) {
+			assertSame(Item.class, document.rootType);
+			assertNull(document.error);
+			assertEquals(JSON.length(), document.stats.bytes);
+			// { values [ 1 2 3 ] }
+			assertEquals(8, document.stats.tokens);
+			assertEquals(2, document.stats.maxDepth);
+			assertTrue(document.stats.nanos >= 0);
+		}
+	}
+
+	/**
+	 * Rejected documents are measured up to the rejected token
+	 */
+	@Test
+	public void rejected() throws Exception {
+		final String json = "{\"values\": [1, 4, 2]}";
+		try {
+			reader.read(json);
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(1, recorded.size());
+			assertSame(e, recorded.get(0).error);
+		}
+		try {
+			Inputs.feed(reader, json.getBytes(StandardCharsets.UTF_8));
+			fail();
+		} catch (final ValidationError e) {
+			assertSame(e, recorded.get(1).error);
+		}
+		assertEquals(json.indexOf('4'), recorded.get(0).stats.bytes);
+		// Jackson's non-blocking parser places number tokens after their first digit
+		assertTrue(recorded.get(1).stats.bytes >= json.indexOf('4') && recorded.get(1).stats.bytes <= json.indexOf('4') + 1);
+		for (final Recorded document : recorded)
+			assertEquals(5, document.stats.tokens);
+		// Truncated, so rejected after the last token
+		final String truncated = "{\"values\": [1, 2";
+		try {
+			reader.read(new ByteArrayInputStream(truncated.getBytes(StandardCharsets.UTF_8)));
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.SYNTAX, e.getCode());
+		}
+		assertEquals(truncated.lastIndexOf('2'), recorded.get(2).stats.bytes);
+	}
+
+	@Test
+	public void records() throws Exception {
+		reader.stream(new ByteArrayInputStream("{\"values\": []}\n{\"values\": [1]}".getBytes(StandardCharsets.UTF_8)))
+				.count();
+		assertEquals(2, recorded.size());
+		assertEquals(5, recorded.get(0).stats.tokens);
+		assertEquals(6, recorded.get(1).stats.tokens);
+		assertEquals("{\"values\": []}".length(), recorded.get(0).stats.bytes);
+		assertEquals("{\"values\": [1]}".length(), recorded.get(1).stats.bytes);
+	}
+
+	/**
+	 * Syntax errors between records are reported too
+	 */
+	@Test
+	public void recordBoundaries() throws Exception {
+		for (final String json : new String[] {
+				"[{\"values\": []},", "{\"values\": []} ]", "[{\"values\": []}] x",
+				"[{\"values\": []}] {}",
+				"{\"values\": []}\n@"
+		}) {
+			recorded.clear();
+			try {
+				reader.stream(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).count();
+				fail();
+			} catch (final ValidationError e) {
+				assertEquals(ValidationError.Code.SYNTAX, e.getCode());
+				assertEquals(2, recorded.size());
+				assertNull(recorded.get(0).error);
+				assertSame(e, recorded.get(1).error);
+				assertEquals(0, recorded.get(1).stats.tokens);
+				assertTrue(recorded.get(1).stats.bytes >= 0);
+			}
+		}
+	}
+
+	@Test
+	public void parallelRejected() throws Exception {
+		final File file = folder.newFile();
+		Files.write(file.toPath(), "{\"values\": [1]}\n@bad\n{\"values\": [4]}\n{\"values\": [2]}\n".getBytes(StandardCharsets.UTF_8));
+		final CheckJsonMetrics metrics = new CheckJsonMetrics();
+		final List<ValidationError> errors = Collections.synchronizedList(new ArrayList<>());
+		try (final Stream<Item> records = CheckJson
+				.reader(Item.class)
+				.withListener(metrics)
+				.readLinesParallel(file.toPath(), errors::add)) {
+			assertEquals(2, records.count());
+		}
+		assertEquals(2, errors.size());
+		assertEquals(4, metrics.getDocuments());
+		assertEquals(2, metrics.getRejectionCount());
+		assertEquals(1L,
+				(long) metrics.getRejections().get(new CheckJsonMetrics.Rejection(Item.class,
+						"$.",
+						ValidationError.Code.SYNTAX
+				))
+		);
+	}
+
+	@Test
+	public void metrics() throws Exception {
+		final CheckJsonMetrics metrics = new CheckJsonMetrics();
+		final CheckJsonReader<Item> measured = CheckJson.reader(Item.class).withListener(metrics);
+		measured.read(JSON);
+		for (final String json : new String[] {"{\"values\": [4]}", "{\"values\": [1, 5]}", "{\"values\": [\"a\"]}"}) {
+			try {
+				measured.read(json);
+				fail();
+			} catch (final ValidationError e) {
+				// Counted
+			}
+		}
+		assertEquals(4, metrics.getDocuments());
+		assertEquals(3, metrics.getRejectionCount());
+		assertEquals(2, metrics.getMaxDepth());
+		assertEquals(JSON.length() + "{\"values\": [".length() * 2 + "{\"values\": [1, ".length(), metrics.getBytes());
+		assertEquals(8 + 4 + 5 + 4, metrics.getTokens());
+		assertTrue(metrics.getMaxNanos() <= metrics.getNanos());
+		final Map<CheckJsonMetrics.Rejection, Long> rejections = metrics.getRejections();
+		assertEquals(2, rejections.size());
+		// Grouped by path pattern, without indices
+		assertEquals(2L,
+				(long) rejections.get(new CheckJsonMetrics.Rejection(Item.class, "$.values[]", ValidationError.Code.RANGE))
+		);
+		assertEquals(1L,
+				(long) rejections.get(new CheckJsonMetrics.Rejection(Item.class,
+						"$.values[]",
+						ValidationError.Code.TYPE_MISMATCH
+				))
+		);
+	}
+
+	@Test
+	public void all() throws Exception {
+		final List<String> order = new ArrayList<>();
+		CheckJson
+				.reader(Item.class)
+				.withListener(CheckJsonListener.all((rootType, stats, error) -> order.add("a"),
+						(rootType, stats, error) -> order.add("b")
+				))
+				.read(JSON);
+		assertEquals(Arrays.asList("a", "b"), order);
+	}
+
+	@Test
+	public void slow() throws Exception {
+		final CheckJsonReader<Item> sampled = CheckJson
+				.reader(Item.class)
+				.withListener(CheckJsonListener.slow(0, 3, (rootType, stats, error) -> recorded.add(new Recorded(
+						rootType,
+						stats,
+						error
+				))));
+		for (int i = 0; i < 7; ++i)
+			sampled.read(JSON);
+		assertEquals(3, recorded.size());
+		final CheckJsonReader<Item> none = CheckJson
+				.reader(Item.class)
+				.withListener(CheckJsonListener.slow(Long.MAX_VALUE, 1, (rootType, stats, error) -> fail()));
+		none.read(JSON);
+		try {
+			CheckJsonListener.slow(0, 0, (rootType, stats, error) -> {
+			});
+			fail();
+		} catch (final IllegalArgumentException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NumbersTest {
+	public static class Ints {
+		@JsonProperty
+		@Valid(optional = true, min = Valid.Limit.INCLUSIVE, minValue = -5, max = Valid.Limit.EXCLUSIVE, maxValue = 5)
+		public int i;
+
+		@JsonProperty
+		@Valid(optional = true, min = Valid.Limit.EXCLUSIVE, minValue = 0)
+		public long l;
+	}
+
+	public static class Floats {
+		@JsonProperty
+		@Valid(optional = true, min = Valid.Limit.EXCLUSIVE, minFloatValue = 0, max = Valid.Limit.INCLUSIVE,
+				maxFloatValue = 1)
+		public float f;
+
+		@JsonProperty
+		@Valid(optional = true, min = Valid.Limit.INCLUSIVE, minFloatValue = -1)
+		public double d;
+	}
+
+	private static final CheckJsonReader<Ints> ints = CheckJson.reader(Ints.class);
+	private static final CheckJsonReader<Floats> floats = CheckJson.reader(Floats.class);
+
+	private static void error(
+			final CheckJsonReader<?> reader, final String json, final ValidationError.Code code, final String path
+	) throws Exception {
+		final ValidationError error = Inputs.error(reader, json);
+		assertEquals(code, error.getCode());
+		assertEquals(path, error.getPath());
+	}
+
+	@Test
+	public void intBounds() throws Exception {
+		assertEquals(-5, Inputs.read(ints, "{\"i\": -5}").i);
+		assertEquals(4, Inputs.read(ints, "{\"i\": 4}").i);
+		error(ints, "{\"i\": -6}", ValidationError.Code.RANGE, "$.i");
+		error(ints, "{\"i\": 5}", ValidationError.Code.RANGE, "$.i");
+	}
+
+	@Test
+	public void longBounds() throws Exception {
+		assertEquals(Long.MAX_VALUE, Inputs.read(ints, "{\"l\": 9223372036854775807}").l);
+		assertEquals(1, Inputs.read(ints, "{\"l\": 1}").l);
+		error(ints, "{\"l\": 0}", ValidationError.Code.RANGE, "$.l");
+	}
+
+	/**
+	 * Values too large for the field are rejected rather than truncated
+	 */
+	@Test
+	public void overflow() throws Exception {
+		error(ints, "{\"i\": 2147483648}", ValidationError.Code.FORMAT, "$.i");
+		error(ints, "{\"i\": -2147483649}", ValidationError.Code.FORMAT, "$.i");
+		error(ints, "{\"l\": 9223372036854775808}", ValidationError.Code.FORMAT, "$.l");
+	}
+
+	@Test
+	public void typeMismatch() throws Exception {
+		error(ints, "{\"i\": 1.5}", ValidationError.Code.TYPE_MISMATCH, "$.i");
+		error(ints, "{\"i\": \"1\"}", ValidationError.Code.TYPE_MISMATCH, "$.i");
+		error(floats, "{\"f\": 1}", ValidationError.Code.TYPE_MISMATCH, "$.f");
+	}
+
+	@Test
+	public void floatBounds() throws Exception {
+		assertEquals(1f, Inputs.read(floats, "{\"f\": 1.0}").f, 0);
+		assertEquals(1e-3f, Inputs.read(floats, "{\"f\": 1e-3}").f, 0);
+		error(floats, "{\"f\": 0.0}", ValidationError.Code.RANGE, "$.f");
+		error(floats, "{\"f\": 1.01}", ValidationError.Code.RANGE, "$.f");
+		assertEquals(-1, Inputs.read(floats, "{\"d\": -1.0}").d, 0);
+		assertEquals(1.25e100, Inputs.read(floats, "{\"d\": 1.25e100}").d, 0);
+		error(floats, "{\"d\": -1.5}", ValidationError.Code.RANGE, "$.d");
+	}
+
+	@Test
+	public void message() throws Exception {
+		assertEquals("Value 5 is above exclusive maximum 5\nat $.i", Inputs.error(ints, "{\"i\": 5}").getMessage());
+		assertEquals("Value 1.5 is above inclusive maximum 1.0\nat $.f", Inputs.error(floats, "{\"f\": 1.5}").getMessage());
+	}
+}
@@ -0,0 +1,135 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.zarbosoft.checkjson.internal.Options;
+import com.zarbosoft.checkjson.internal.TypeInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ParallelLinesTest {
+	public static class Record {
+		@JsonProperty
+		@Valid
+		public int x;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Record y;
+	}
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<ValidationError> errors = Collections.synchronizedList(new ArrayList<>());
+
+	private Path file(final String text) throws Exception {
+		final Path file = folder.newFile().toPath();
+		Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private List<Integer> read(final Stream<Record> records) {
+		try (final Stream<Record> closing = records) {
+			return closing.map(r -> r.x).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private List<Integer> read(final String text) throws Exception {
+		return read(CheckJson.reader(Record.class).readLinesParallel(file(text), errors::add));
+	}
+
+	@Test
+	public void valid() throws Exception {
+		assertEquals(Arrays.asList(1, 2, 3), read("{\"x\":1}\n{\"x\":2}\n\n{\"x\":3}"));
+		assertEquals(0, errors.size());
+	}
+
+	@Test
+	public void invalidRecord() throws Exception {
+		assertEquals(Arrays.asList(1, 3), read("{\"x\":1}\n{\"x\":\"a\"}\n{\"x\":3}\n"));
+		assertEquals(1, errors.size());
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, errors.get(0).getCode());
+		assertEquals("byte 8 $.x", errors.get(0).getPath());
+	}
+
+	/**
+	 * The parser reads past the end of the line looking for the rest of the record
+	 */
+	@Test
+	public void truncatedRecord() throws Exception {
+		assertEquals(Arrays.asList(1, 3), read("{\"x\":1}\n{\"x\":2\n{\"x\":3}\n"));
+		assertEquals(1, errors.size());
+		assertEquals(ValidationError.Code.SYNTAX, errors.get(0).getCode());
+	}
+
+	@Test
+	public void truncatedBeforeValue() throws Exception {
+		assertEquals(Collections.singletonList(3), read("{\"x\":2,\"y\":\n{\"x\":3}\n"));
+		assertEquals(1, errors.size());
+	}
+
+	@Test
+	public void truncatedLastRecord() throws Exception {
+		assertEquals(Collections.singletonList(1), read("{\"x\":1}\n{\"x\":"));
+		assertEquals(1, errors.size());
+	}
+
+	@Test
+	public void syntaxErrorAtRecordStart() throws Exception {
+		assertEquals(Arrays.asList(1, 3), read("{\"x\":1}\n]\n{\"x\":3}\n"));
+		assertEquals(1, errors.size());
+		assertEquals(ValidationError.Code.SYNTAX, errors.get(0).getCode());
+	}
+
+	@Test
+	public void chunks() throws Exception {
+		final StringBuilder text = new StringBuilder();
+		final List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < 100; ++i) {
+			if (i % 10 == 5)
+				text.append("{\"x\":").append(i).append(",\n");
+			else {
+				text.append("{\"x\":").append(i).append("}\n");
+				expected.add(i);
+			}
+		}
+		assertEquals(expected,
+				read(ParallelLines.stream(new JsonFactory(),
+						new TypeInfo(Record.class),
+						Options.DEFAULT,
+						file(text.toString()),
+						64,
+						errors::add
+				))
+		);
+		assertEquals(10, errors.size());
+	}
+
+	@Test
+	public void throwWithoutConsumer() throws Exception {
+		try (final Stream<Record> records = CheckJson
+				.reader(Record.class)
+				.readLinesParallel(file("{\"x\":1}\n{\"x\":\"a\"}\n"))) {
+			records.forEach(r -> {
+			});
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.TYPE_MISMATCH, e.getCode());
+		}
+	}
+}
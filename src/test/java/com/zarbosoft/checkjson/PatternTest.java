@@ -0,0 +1,92 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zarbosoft.checkjson.internal.ClassInfo;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PatternTest {
+	public static class Patterned {
+		@JsonProperty
+		@Valid(pattern = "[a-z]+")
+		public String name;
+
+		@JsonProperty
+		@Valid(optional = true, pattern = "[0-9]{2}")
+		public List<String> codes;
+	}
+
+	public static class BadPattern {
+		@JsonProperty
+		@Valid(pattern = "[")
+		public String s;
+	}
+
+	private static final CheckJsonReader<Patterned> reader = CheckJson.reader(Patterned.class);
+
+	@Test
+	public void matches() throws Exception {
+		final Patterned result = Inputs.read(reader, "{\"name\": \"abc\", \"codes\": [\"01\", \"99\"]}");
+		assertEquals("abc", result.name);
+		assertEquals("99", result.codes.get(1));
+	}
+
+	/**
+	 * The whole value has to match, not just part of it
+	 */
+	@Test
+	public void partial() throws Exception {
+		final ValidationError error = Inputs.error(reader, "{\"name\": \"abc1\"}");
+		assertEquals(ValidationError.Code.PATTERN, error.getCode());
+		assertEquals("$.name", error.getPath());
+		assertEquals("Value [abc1] does not match pattern [[a-z]+]\nat $.name", error.getMessage());
+	}
+
+	@Test
+	public void elements() throws Exception {
+		final ValidationError error = Inputs.error(reader, "{\"name\": \"a\", \"codes\": [\"01\", \"1\"]}");
+		assertEquals(ValidationError.Code.PATTERN, error.getCode());
+		assertEquals("$.codes[1]", error.getPath());
+	}
+
+	/**
+	 * Long values are shortened in the message
+	 */
+	@Test
+	public void preview() throws Exception {
+		final StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 150; ++i)
+			value.append('A');
+		final ValidationError error = Inputs.error(reader, "{\"name\": \"" + value + "\"}");
+		assertTrue(error.getMessage(), error.getMessage().contains("... (50 more)"));
+	}
+
+	/**
+	 * Patterns are compiled with the class plan and shared by every read, including the elements of collections
+	 */
+	@Test
+	public void compiled() {
+		final ClassInfo info = ClassInfo.get(Patterned.class);
+		assertEquals("[a-z]+", info.fields[0].pattern.pattern());
+		assertSame(info.fields[1].pattern, info.fields[1].parameters[0].pattern);
+	}
+
+	/**
+	 * A malformed pattern fails when the reader is created rather than on the first value
+	 */
+	@Test
+	public void badPattern() {
+		try {
+			CheckJson.reader(BadPattern.class);
+			fail();
+		} catch (final AssertionError e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid pattern [[] on field"));
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeName;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PolymorphicTest {
+	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+	@JsonSubTypes({
+			@JsonSubTypes.Type(value = Created.class, name = "created"),
+			@JsonSubTypes.Type(value = Deleted.class),
+			@JsonSubTypes.Type(value = Moved.class)
+	})
+	public interface Event {
+	}
+
+	public static class Created implements Event {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 10)
+		public int size;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Event> children;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public byte[] data;
+	}
+
+	@JsonTypeName("gone")
+	public static class Deleted implements Event {
+		@JsonProperty
+		@Valid
+		public String reason;
+	}
+
+	/**
+	 * Declares the discriminator, so it's set too
+	 */
+	public static class Moved implements Event {
+		@JsonProperty
+		@Valid
+		public String type;
+
+		@JsonProperty
+		@Valid
+		public String to;
+	}
+
+	public static class Log {
+		@JsonProperty
+		@Valid
+		public List<Event> events;
+	}
+
+	@JsonTypeInfo(use = JsonTypeInfo.Id.CLASS)
+	public interface Unsupported {
+	}
+
+	public static class Holder {
+		@JsonProperty
+		@Valid
+		public Unsupported value;
+	}
+
+	private static final CheckJsonReader<Event> root = CheckJson.reader(Event.class);
+	private static final CheckJsonReader<Log> log = CheckJson.reader(Log.class);
+
+	private static void error(
+			final String json, final ValidationError.Code code, final String path, final String field
+	) throws Exception {
+		final ValidationError error = Inputs.error(root, json);
+		assertEquals(code, error.getCode());
+		assertEquals(path, error.getPath());
+		assertEquals(field, error.getField());
+	}
+
+	/**
+	 * Fields before the discriminator, including nested polymorphic objects, are replayed into the subtype
+	 */
+	@Test
+	public void discriminatorPosition() throws Exception {
+		for (final String json : new String[] {
+				"{\"type\": \"created\", \"size\": 3, \"children\": [{\"type\": \"gone\", \"reason\": \"r\"}]}",
+				"{\"size\": 3, \"type\": \"created\", \"children\": [{\"reason\": \"r\", \"type\": \"gone\"}]}",
+				"{\"size\": 3, \"children\": [{\"reason\": \"r\", \"type\": \"gone\"}], \"type\": \"created\"}"
+		}) {
+			final Created created = (Created) Inputs.read(root, json);
+			assertEquals(3, created.size);
+			assertEquals("r", ((Deleted) created.children.get(0)).reason);
+		}
+	}
+
+	/**
+	 * Ids come from the subtype list, then JsonTypeName, then the class name without its package as in Jackson
+	 */
+	@Test
+	public void ids() throws Exception {
+		final Log result = Inputs.read(log,
+				"{\"events\": [{\"type\": \"gone\", \"reason\": \"r\"}, {\"to\": \"b\", \"type\": \"PolymorphicTest$Moved\"}, " +
+						"{\"type\": \"created\", \"size\": 1}]}"
+		);
+		assertTrue(result.events.get(0) instanceof Deleted);
+		assertEquals("PolymorphicTest$Moved", ((Moved) result.events.get(1)).type);
+		assertEquals("b", ((Moved) result.events.get(1)).to);
+		assertTrue(result.events.get(2) instanceof Created);
+	}
+
+	@Test
+	public void discriminatorErrors() throws Exception {
+		error("{\"type\": \"other\", \"size\": 1}", ValidationError.Code.TYPE_MISMATCH, "$.type", "type");
+		error("{\"type\": 1, \"size\": 1}", ValidationError.Code.TYPE_MISMATCH, "$.type", "type");
+		error("{\"size\": 1}", ValidationError.Code.MISSING_FIELD, "$", "type");
+		assertEquals(ValidationError.Code.TYPE_MISMATCH,
+				Inputs.error(log, "{\"events\": [{\"size\": 1, \"type\": {}}]}").getCode()
+		);
+	}
+
+	/**
+	 * Buffered fields are checked when they're replayed and errors have their original path
+	 */
+	@Test
+	public void bufferedErrors() throws Exception {
+		error("{\"size\": 11, \"type\": \"created\"}", ValidationError.Code.RANGE, "$.size", "size");
+		error("{\"other\": 1, \"type\": \"created\"}", ValidationError.Code.UNKNOWN_FIELD, "$.other", "other");
+		error("{\"data\": \"A!==\", \"type\": \"created\", \"size\": 1}", ValidationError.Code.FORMAT, "$.data", "data");
+		assertEquals("$.events[1].size",
+				Inputs.error(log, "{\"events\": [{\"type\": \"gone\", \"reason\": \"\"}, {\"size\": 12, \"type\": \"created\"}]}")
+						.getPath()
+		);
+	}
+
+	@Test
+	public void buffered() throws Exception {
+		final Created created = (Created) Inputs.read(root, "{\"data\": \"AAE=\", \"size\": 2, \"type\": \"created\"}");
+		assertArrayEquals(new byte[] {0, 1}, created.data);
+	}
+
+	@Test
+	public void write() throws Exception {
+		final Moved moved = new Moved();
+		moved.type = "PolymorphicTest$Moved";
+		moved.to = "c";
+		final Deleted deleted = new Deleted();
+		deleted.reason = "r";
+		for (final Event event : new Event[] {moved, deleted}) {
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			CheckJson.write(out, event, Event.class);
+			final Event read = root.read(new String(out.toByteArray(), StandardCharsets.UTF_8));
+			assertEquals(event.getClass(), read.getClass());
+		}
+	}
+
+	@Test
+	public void unsupported() {
+		try {
+			CheckJson.reader(Holder.class);
+			fail();
+		} catch (final IllegalStateException e) {
+			assertTrue(e.getMessage().contains("only JsonTypeInfo use NAME"));
+		}
+	}
+}
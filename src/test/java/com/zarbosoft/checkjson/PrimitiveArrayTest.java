@@ -0,0 +1,83 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PrimitiveArrayTest {
+	public static class Arrays {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 3)
+		public int[] ints;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public long[] longs;
+
+		@JsonProperty
+		@Valid(optional = true, min = Valid.Limit.INCLUSIVE, minFloatValue = 0)
+		public double[] doubles;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public boolean[] booleans;
+	}
+
+	private static final CheckJsonReader<Arrays> reader = CheckJson.reader(Arrays.class);
+
+	@Test
+	public void bind() throws Exception {
+		final Arrays result = Inputs.read(reader,
+				"{\"ints\": [1, 2, 3], \"longs\": [4000000000], \"doubles\": [0.5, 2.0], \"booleans\": [true, false]}"
+		);
+		assertArrayEquals(new int[] {1, 2, 3}, result.ints);
+		assertArrayEquals(new long[] {4000000000L}, result.longs);
+		assertArrayEquals(new double[] {0.5, 2}, result.doubles, 0);
+		assertArrayEquals(new boolean[] {true, false}, result.booleans);
+	}
+
+	@Test
+	public void empty() throws Exception {
+		assertEquals(0, Inputs.read(reader, "{\"ints\": []}").ints.length);
+	}
+
+	@Test
+	public void grow() throws Exception {
+		final StringBuilder json = new StringBuilder("{\"ints\": [");
+		for (int i = 0; i < 100; ++i)
+			json.append(i == 0 ? "" : ",").append(i % 4);
+		assertEquals(100, Inputs.read(reader, json.append("]}").toString()).ints.length);
+	}
+
+	/**
+	 * The field's Valid applies to each element, not the length
+	 */
+	@Test
+	public void validAppliesToElements() throws Exception {
+		assertEquals(7, Inputs.read(reader, "{\"ints\": [1, 1, 1, 1, 1, 1, 1]}").ints.length);
+		final ValidationError error = Inputs.error(reader, "{\"ints\": [1, 4]}");
+		assertEquals(ValidationError.Code.RANGE, error.getCode());
+		assertEquals("$.ints[1]", error.getPath());
+	}
+
+	@Test
+	public void elementRange() throws Exception {
+		assertEquals("$.doubles[0]", Inputs.error(reader, "{\"ints\": [], \"doubles\": [-1]}").getPath());
+	}
+
+	@Test
+	public void elementType() throws Exception {
+		final ValidationError error = Inputs.error(reader, "{\"ints\": [1, \"a\"]}");
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, error.getCode());
+		assertEquals("$.ints[1]", error.getPath());
+	}
+
+	@Test
+	public void lengthBoundedByTokens() throws Exception {
+		final ValidationError error =
+				Inputs.error(reader.withMaxTokens(8), "{\"ints\": [1, 1, 1, 1, 1, 1, 1]}");
+		assertEquals(ValidationError.Code.LIMIT, error.getCode());
+	}
+}
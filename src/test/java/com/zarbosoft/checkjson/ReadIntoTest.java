@@ -0,0 +1,217 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ReadIntoTest {
+	public static class Inner {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 10)
+		public int x;
+	}
+
+	public static class Root {
+		@JsonProperty
+		@Valid
+		public int n;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public String s = "default";
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Inner inner;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Inner> inners = new ArrayList<>();
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Set<String> tags;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public ArrayDeque<Integer> queue;
+	}
+
+	@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+	@JsonSubTypes({
+			@JsonSubTypes.Type(value = A.class, name = "a"), @JsonSubTypes.Type(value = B.class, name = "b")
+	})
+	public interface Shape {
+	}
+
+	public static class A implements Shape {
+		@JsonProperty
+		@Valid
+		public int x;
+	}
+
+	public static class B implements Shape {
+		@JsonProperty
+		@Valid
+		public int y;
+	}
+
+	private interface Into {
+		Root read(Root into) throws Exception;
+	}
+
+	private static final CheckJsonReader<Root> reader = CheckJson.reader(Root.class);
+	private static final String FULL = "{\"n\": 1, \"s\": \"x\", \"inner\": {\"x\": 2}, " +
+			"\"inners\": [{\"x\": 3}, {\"x\": 4}, {\"x\": 5}], \"tags\": [\"a\", \"b\"], \"queue\": [1, 2]}";
+
+	private static List<Into> inputs(final String json) {
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		return Arrays.asList(
+				into -> reader.readInto(json, into),
+				into -> reader.readInto(bytes, into),
+				into -> reader.readInto(new ByteArrayInputStream(bytes), into),
+				into -> reader.readInto(ByteBuffer.wrap(bytes), into)
+		);
+	}
+
+	private static Root full() throws Exception {
+		return reader.read(FULL);
+	}
+
+	@Test
+	public void reused() throws Exception {
+		for (final Into input : inputs("{\"n\": 2, \"inner\": {\"x\": 6}, \"inners\": [{\"x\": 7}], " +
+				"\"tags\": [\"c\"], \"queue\": [3]}")) {
+			final Root into = full();
+			final Inner inner = into.inner;
+			final List<Inner> inners = into.inners;
+			final Inner first = inners.get(0);
+			final Set<String> tags = into.tags;
+			final ArrayDeque<Integer> queue = into.queue;
+			assertSame(into, input.read(into));
+			assertEquals(2, into.n);
+			assertSame(inner, into.inner);
+			assertEquals(6, inner.x);
+			assertSame(inners, into.inners);
+			assertEquals(1, inners.size());
+			assertSame(first, inners.get(0));
+			assertEquals(7, first.x);
+			assertSame(tags, into.tags);
+			assertEquals(Collections.singleton("c"), tags);
+			assertSame(queue, into.queue);
+			assertEquals(Collections.singletonList(3), new ArrayList<>(queue));
+		}
+	}
+
+	@Test
+	public void grow() throws Exception {
+		for (final Into input : inputs("{\"n\": 1, \"inners\": [{\"x\": 1}, {\"x\": 2}, {\"x\": 3}, {\"x\": 4}]}")) {
+			final Root into = full();
+			input.read(into);
+			assertEquals(4, into.inners.size());
+			for (int i = 0; i < 4; ++i)
+				assertEquals(i + 1, into.inners.get(i).x);
+		}
+	}
+
+	/**
+	 * Missing fields and explicit nulls take the values of a new object, with a fresh mutable default
+	 */
+	@Test
+	public void defaults() throws Exception {
+		for (final Into input : inputs("{\"n\": 3, \"inners\": null}")) {
+			final Root into = full();
+			final List<Inner> inners = into.inners;
+			input.read(into);
+			assertEquals(3, into.n);
+			assertEquals("default", into.s);
+			assertNull(into.inner);
+			assertNull(into.tags);
+			assertNull(into.queue);
+			assertEquals(0, into.inners.size());
+			assertNotSame(inners, into.inners);
+		}
+	}
+
+	@Test
+	public void sameAsRead() throws Exception {
+		for (final String json : new String[] {FULL, "{\"n\": 5}", "{\"n\": 5, \"tags\": [], \"inners\": []}"}) {
+			final Root read = reader.read(json);
+			for (final Into input : inputs(json)) {
+				final Root into = input.read(full());
+				assertEquals(read.n, into.n);
+				assertEquals(read.s, into.s);
+				assertEquals(read.inner == null, into.inner == null);
+				assertEquals(read.inners.size(), into.inners.size());
+				assertEquals(read.tags, into.tags);
+			}
+		}
+	}
+
+	@Test
+	public void errors() throws Exception {
+		for (final String json : new String[] {
+				"{\"n\": 1, \"inners\": [{\"x\": 1}, {\"x\": 11}]}", "{\"inner\": {\"x\": 1}}", "{\"n\": 1, \"other\": 1}"
+		}) {
+			final ValidationError expected = Inputs.error(reader, json);
+			for (final Into input : inputs(json)) {
+				try {
+					input.read(full());
+					fail();
+				} catch (final ValidationError e) {
+					assertEquals(expected.getCode(), e.getCode());
+					assertEquals(expected.getPath(), e.getPath());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void limits() throws Exception {
+		final CheckJsonReader<Root> limited = reader.withMaxDepth(1);
+		try {
+			limited.readInto(FULL, full());
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.LIMIT, e.getCode());
+		}
+		try {
+			reader.withMaxBytes(4).readInto(FULL, full());
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(ValidationError.Code.LIMIT, e.getCode());
+		}
+	}
+
+	/**
+	 * A polymorphic root is refilled if the document names its class, otherwise a new object is returned
+	 */
+	@Test
+	public void polymorphic() throws Exception {
+		final CheckJsonReader<Shape> shapes = CheckJson.reader(Shape.class);
+		final A a = new A();
+		assertSame(a, shapes.readInto("{\"x\": 2, \"type\": \"a\"}", a));
+		assertEquals(2, a.x);
+		final Shape b = shapes.readInto("{\"type\": \"b\", \"y\": 3}", a);
+		assertEquals(3, ((B) b).y);
+		assertEquals(2, a.x);
+	}
+}
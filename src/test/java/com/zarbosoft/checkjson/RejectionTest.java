@@ -0,0 +1,114 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RejectionTest {
+	public static class Item {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 3)
+		public int count;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public String note;
+	}
+
+	private static final CheckJsonReader<Item> reader = CheckJson.reader(Item.class);
+	private static final CheckJsonReader<Item> stackless = reader.withStackTraces(false);
+
+	private static ValidationError[] errors(final CheckJsonReader<Item> reader, final String json) throws Exception {
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		final ValidationError[] out = new ValidationError[4];
+		try {
+			reader.read(json);
+		} catch (final ValidationError e) {
+			out[0] = e;
+		}
+		try {
+			Inputs.feed(reader, bytes);
+		} catch (final ValidationError e) {
+			out[1] = e;
+		}
+		try {
+			reader.stream(new ByteArrayInputStream(bytes)).count();
+		} catch (final ValidationError e) {
+			out[2] = e;
+		}
+		out[3] = reader.validate(json);
+		return out;
+	}
+
+	@Test
+	public void stackTraces() throws Exception {
+		for (final String json : new String[] {"{\"count\": 4}", "{\"count\": 1", "{\"count\": 1, \"x\": 2}"}) {
+			for (final ValidationError error : errors(reader, json))
+				assertTrue(error.getStackTrace().length > 0);
+			for (final ValidationError error : errors(stackless, json))
+				assertEquals(0, error.getStackTrace().length);
+		}
+	}
+
+	/**
+	 * The internal error a ValidationError wraps never captures a stack trace
+	 */
+	@Test
+	public void internalStackless() throws Exception {
+		for (final ValidationError error : errors(reader, "{\"count\": 4}"))
+			assertEquals(0, error.getCause().getStackTrace().length);
+	}
+
+	@Test
+	public void classification() throws Exception {
+		for (final ValidationError error : errors(stackless, "{\"count\": 4}")) {
+			assertEquals(ValidationError.Code.RANGE, error.getCode());
+			assertEquals("count", error.getField());
+			// Streams prefix the record
+			assertEquals("$.count", error.getPathPattern());
+		}
+		for (final ValidationError error : errors(stackless, "{\"note\": \"a\", \"other\": 4}")) {
+			assertEquals(ValidationError.Code.UNKNOWN_FIELD, error.getCode());
+			assertEquals("other", error.getField());
+		}
+		for (final ValidationError error : errors(stackless, "{\"note\": \"a\"}")) {
+			assertEquals(ValidationError.Code.MISSING_FIELD, error.getCode());
+			assertEquals("count", error.getField());
+		}
+		for (final ValidationError error : errors(stackless, "[1]"))
+			assertNull(error.getField());
+	}
+
+	/**
+	 * Messages are formatted once, when first read
+	 */
+	@Test
+	public void message() throws Exception {
+		final ValidationError error = errors(stackless, "{\"count\": 4}")[0];
+		final String message = error.getMessage();
+		assertEquals("Value 4 is above inclusive maximum 3\nat $.count", message);
+		assertSame(message, error.getMessage());
+	}
+
+	/**
+	 * Messages describe the problem in JSON terms without naming classes
+	 */
+	@Test
+	public void userOriented() throws Exception {
+		for (final String json : new String[] {
+				"{\"count\": \"x\"}", "{\"count\": 1, \"note\": 2}", "{\"count\": null}", "[1]", "{}"
+		}) {
+			for (final ValidationError error : errors(stackless, json)) {
+				assertTrue(error.getMessage(), !error.getMessage().contains("com.zarbosoft"));
+				assertTrue(error.getMessage(), !error.getMessage().contains("java."));
+			}
+		}
+	}
+}
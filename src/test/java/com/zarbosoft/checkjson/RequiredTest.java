@@ -0,0 +1,390 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RequiredTest {
+	public static class Small {
+		@JsonProperty
+		@Valid
+		public int a;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public int b = 7;
+
+		@JsonProperty
+		@Valid
+		public int c;
+	}
+
+	/**
+	 * Wider than one word of the seen bitset, with the last field optional
+	 */
+	public static class Wide {
+		@JsonProperty
+		@Valid
+		public int f0;
+
+		@JsonProperty
+		@Valid
+		public int f1;
+
+		@JsonProperty
+		@Valid
+		public int f2;
+
+		@JsonProperty
+		@Valid
+		public int f3;
+
+		@JsonProperty
+		@Valid
+		public int f4;
+
+		@JsonProperty
+		@Valid
+		public int f5;
+
+		@JsonProperty
+		@Valid
+		public int f6;
+
+		@JsonProperty
+		@Valid
+		public int f7;
+
+		@JsonProperty
+		@Valid
+		public int f8;
+
+		@JsonProperty
+		@Valid
+		public int f9;
+
+		@JsonProperty
+		@Valid
+		public int f10;
+
+		@JsonProperty
+		@Valid
+		public int f11;
+
+		@JsonProperty
+		@Valid
+		public int f12;
+
+		@JsonProperty
+		@Valid
+		public int f13;
+
+		@JsonProperty
+		@Valid
+		public int f14;
+
+		@JsonProperty
+		@Valid
+		public int f15;
+
+		@JsonProperty
+		@Valid
+		public int f16;
+
+		@JsonProperty
+		@Valid
+		public int f17;
+
+		@JsonProperty
+		@Valid
+		public int f18;
+
+		@JsonProperty
+		@Valid
+		public int f19;
+
+		@JsonProperty
+		@Valid
+		public int f20;
+
+		@JsonProperty
+		@Valid
+		public int f21;
+
+		@JsonProperty
+		@Valid
+		public int f22;
+
+		@JsonProperty
+		@Valid
+		public int f23;
+
+		@JsonProperty
+		@Valid
+		public int f24;
+
+		@JsonProperty
+		@Valid
+		public int f25;
+
+		@JsonProperty
+		@Valid
+		public int f26;
+
+		@JsonProperty
+		@Valid
+		public int f27;
+
+		@JsonProperty
+		@Valid
+		public int f28;
+
+		@JsonProperty
+		@Valid
+		public int f29;
+
+		@JsonProperty
+		@Valid
+		public int f30;
+
+		@JsonProperty
+		@Valid
+		public int f31;
+
+		@JsonProperty
+		@Valid
+		public int f32;
+
+		@JsonProperty
+		@Valid
+		public int f33;
+
+		@JsonProperty
+		@Valid
+		public int f34;
+
+		@JsonProperty
+		@Valid
+		public int f35;
+
+		@JsonProperty
+		@Valid
+		public int f36;
+
+		@JsonProperty
+		@Valid
+		public int f37;
+
+		@JsonProperty
+		@Valid
+		public int f38;
+
+		@JsonProperty
+		@Valid
+		public int f39;
+
+		@JsonProperty
+		@Valid
+		public int f40;
+
+		@JsonProperty
+		@Valid
+		public int f41;
+
+		@JsonProperty
+		@Valid
+		public int f42;
+
+		@JsonProperty
+		@Valid
+		public int f43;
+
+		@JsonProperty
+		@Valid
+		public int f44;
+
+		@JsonProperty
+		@Valid
+		public int f45;
+
+		@JsonProperty
+		@Valid
+		public int f46;
+
+		@JsonProperty
+		@Valid
+		public int f47;
+
+		@JsonProperty
+		@Valid
+		public int f48;
+
+		@JsonProperty
+		@Valid
+		public int f49;
+
+		@JsonProperty
+		@Valid
+		public int f50;
+
+		@JsonProperty
+		@Valid
+		public int f51;
+
+		@JsonProperty
+		@Valid
+		public int f52;
+
+		@JsonProperty
+		@Valid
+		public int f53;
+
+		@JsonProperty
+		@Valid
+		public int f54;
+
+		@JsonProperty
+		@Valid
+		public int f55;
+
+		@JsonProperty
+		@Valid
+		public int f56;
+
+		@JsonProperty
+		@Valid
+		public int f57;
+
+		@JsonProperty
+		@Valid
+		public int f58;
+
+		@JsonProperty
+		@Valid
+		public int f59;
+
+		@JsonProperty
+		@Valid
+		public int f60;
+
+		@JsonProperty
+		@Valid
+		public int f61;
+
+		@JsonProperty
+		@Valid
+		public int f62;
+
+		@JsonProperty
+		@Valid
+		public int f63;
+
+		@JsonProperty
+		@Valid
+		public int f64;
+
+		@JsonProperty
+		@Valid
+		public int f65;
+
+		@JsonProperty
+		@Valid
+		public int f66;
+
+		@JsonProperty
+		@Valid
+		public int f67;
+
+		@JsonProperty
+		@Valid
+		public int f68;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public int f69;
+	}
+
+	private static final CheckJsonReader<Small> small = CheckJson.reader(Small.class);
+	private static final CheckJsonReader<Wide> wide = CheckJson.reader(Wide.class);
+
+	private static String wide(final List<Integer> indices) {
+		final StringBuilder out = new StringBuilder("{");
+		for (final int i : indices) {
+			if (out.length() > 1)
+				out.append(", ");
+			out.append(String.format("\"f%s\": %s", i, i));
+		}
+		return out.append("}").toString();
+	}
+
+	private static List<Integer> all(final int count) {
+		final List<Integer> out = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+			out.add(i);
+		return out;
+	}
+
+	@Test
+	public void optional() throws Exception {
+		final Small result = Inputs.read(small, "{\"a\": 1, \"c\": 3}");
+		assertEquals(7, result.b);
+		assertEquals(3, result.c);
+	}
+
+	@Test
+	public void missing() throws Exception {
+		final ValidationError error = Inputs.error(small, "{\"b\": 1}");
+		assertEquals(ValidationError.Code.MISSING_FIELD, error.getCode());
+		// The first missing field in declaration order
+		assertEquals("a", error.getField());
+		assertEquals("Missing required fields [a, c]\nat $", error.getMessage());
+	}
+
+	@Test
+	public void duplicate() throws Exception {
+		final ValidationError error = Inputs.error(small, "{\"a\": 1, \"c\": 3, \"a\": 2}");
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD, error.getCode());
+		assertEquals("$.a", error.getPath());
+	}
+
+	@Test
+	public void wide() throws Exception {
+		final Wide ordered = Inputs.read(wide, wide(all(70)));
+		assertEquals(68, ordered.f68);
+		final List<Integer> shuffled = all(69);
+		Collections.shuffle(shuffled, new Random(0));
+		final Wide result = Inputs.read(wide, wide(shuffled));
+		assertEquals(0, result.f0);
+		assertEquals(63, result.f63);
+		assertEquals(64, result.f64);
+		assertEquals(68, result.f68);
+	}
+
+	@Test
+	public void wideMissing() throws Exception {
+		final List<Integer> indices = all(70);
+		indices.remove(Integer.valueOf(66));
+		ValidationError error = Inputs.error(wide, wide(indices));
+		assertEquals(ValidationError.Code.MISSING_FIELD, error.getCode());
+		assertEquals("f66", error.getField());
+		indices.remove(Integer.valueOf(63));
+		error = Inputs.error(wide, wide(indices));
+		assertEquals("f63", error.getField());
+		assertEquals("Missing required fields [f63, f66]\nat $", error.getMessage());
+	}
+
+	@Test
+	public void wideDuplicate() throws Exception {
+		final List<Integer> indices = all(70);
+		indices.add(65);
+		final ValidationError error = Inputs.error(wide, wide(indices));
+		assertEquals(ValidationError.Code.UNKNOWN_FIELD, error.getCode());
+		assertEquals("$.f65", error.getPath());
+	}
+}
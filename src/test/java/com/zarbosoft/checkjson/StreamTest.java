@@ -0,0 +1,121 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamTest {
+	public static class Record {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 10)
+		public int x;
+	}
+
+	private static final CheckJsonReader<Record> reader = CheckJson.reader(Record.class);
+
+	private static Stream<Record> stream(final String json) throws Exception {
+		return reader.stream(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static List<Integer> xs(final String json) throws Exception {
+		return stream(json).map(r -> r.x).collect(Collectors.toList());
+	}
+
+	private static ValidationError error(final Iterator<Record> records) {
+		try {
+			while (records.hasNext())
+				records.next();
+		} catch (final ValidationError e) {
+			return e;
+		}
+		throw new AssertionError("Expected a ValidationError");
+	}
+
+	@Test
+	public void array() throws Exception {
+		assertEquals(Arrays.asList(1, 2, 3), xs("[{\"x\": 1}, {\"x\": 2},\n{\"x\": 3}]"));
+		assertEquals(Collections.emptyList(), xs("[]"));
+	}
+
+	@Test
+	public void lines() throws Exception {
+		assertEquals(Arrays.asList(1, 2, 3), xs("{\"x\": 1}\n{\"x\": 2}\r\n\n{\"x\": 3}\n"));
+		assertEquals(Collections.emptyList(), xs(""));
+		assertEquals(Arrays.asList(1, 2), xs("{\"x\": 1} {\"x\": 2}"));
+	}
+
+	/**
+	 * Records before an error are still produced and the error says which record failed
+	 */
+	@Test
+	public void recordError() throws Exception {
+		for (final String json : new String[] {"{\"x\": 1}\n{\"x\": 11}\n{\"x\": 3}", "[{\"x\": 1}, {\"x\": 11}, {\"x\": 3}]"}) {
+			final Iterator<Record> records = stream(json).iterator();
+			assertEquals(1, records.next().x);
+			final ValidationError error = error(records);
+			assertEquals(ValidationError.Code.RANGE, error.getCode());
+			assertEquals("record 1 $.x", error.getPath());
+			assertEquals("$.x", error.getPathPattern());
+			// Reading stops at the first error
+			assertFalse(records.hasNext());
+		}
+	}
+
+	@Test
+	public void syntax() throws Exception {
+		assertEquals(ValidationError.Code.SYNTAX, error(stream("[{\"x\": 1}, {\"x\": 2}").iterator()).getCode());
+		assertEquals(ValidationError.Code.SYNTAX, error(stream("[{\"x\": 1}] {\"x\": 2}").iterator()).getCode());
+		assertEquals(ValidationError.Code.SYNTAX, error(stream("{\"x\": 1}\n{\"x\": ").iterator()).getCode());
+	}
+
+	@Test
+	public void typeMismatch() throws Exception {
+		final ValidationError error = error(stream("{\"x\": 1}\n[1]").iterator());
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, error.getCode());
+		assertTrue(error.getPath(), error.getPath().startsWith("record 1 $"));
+	}
+
+	/**
+	 * Limits apply to each record rather than the whole stream
+	 */
+	@Test
+	public void limits() throws Exception {
+		final String json = "{\"x\": 1}\n{\"x\": 2}\n{\"x\": 3}";
+		assertEquals(3, reader.withMaxBytes(10).withMaxTokens(4)
+				.stream(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))
+				.count());
+		final Iterator<Record> records = reader
+				.withMaxBytes(10)
+				.stream(new ByteArrayInputStream("{\"x\": 1}\n{\"x\":     2}".getBytes(StandardCharsets.UTF_8)))
+				.iterator();
+		assertEquals(1, records.next().x);
+		assertEquals(ValidationError.Code.LIMIT, error(records).getCode());
+	}
+
+	@Test
+	public void closeable() throws Exception {
+		try (final Stream<Record> records = CheckJson.stream(new ByteArrayInputStream("[{\"x\": 4}]".getBytes(
+				StandardCharsets.UTF_8)), Record.class)) {
+			assertEquals(4, records.findFirst().get().x);
+		}
+		try {
+			stream("{\"x\": 11}").count();
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals("record 0 $.x", e.getPath());
+		}
+	}
+}
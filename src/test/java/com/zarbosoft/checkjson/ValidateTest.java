@@ -0,0 +1,140 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ValidateTest {
+	public static class Counted {
+		static int created = 0;
+
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 2, max = Valid.Limit.INCLUSIVE, maxValue = 4, pattern = "[a-z]*")
+		public String name;
+
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 9)
+		public List<Integer> numbers;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Set<String> tags;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public ArrayDeque<Counted> children;
+
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 9)
+		public int[] primitives;
+
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 2)
+		public byte[] data;
+
+		public Counted() {
+			created += 1;
+		}
+	}
+
+	private static final CheckJsonReader<Counted> reader = CheckJson.reader(Counted.class);
+
+	/**
+	 * @return The error from validating every input, after checking they and a read all agree
+	 */
+	private static ValidationError validate(final String json) throws Exception {
+		final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		final ValidationError error = reader.validate(json);
+		for (final ValidationError other : new ValidationError[] {
+				reader.validate(bytes, 0, bytes.length),
+				reader.validate(ByteBuffer.wrap(bytes)),
+				reader.validate(new ByteArrayInputStream(bytes)),
+				CheckJson.validate(json, Counted.class)
+		}) {
+			if (error == null) {
+				assertNull(other);
+				continue;
+			}
+			assertEquals(error.getCode(), other.getCode());
+			assertEquals(error.getPath(), other.getPath());
+			// Jackson describes the input in its syntax errors
+			if (error.getCode() != ValidationError.Code.SYNTAX)
+				assertEquals(error.getMessage(), other.getMessage());
+		}
+		try {
+			reader.read(json);
+			if (error != null)
+				fail("Read accepted a document that doesn't validate");
+		} catch (final ValidationError e) {
+			assertNotNull("Validation accepted a document that doesn't read", error);
+			assertEquals(e.getCode(), error.getCode());
+			assertEquals(e.getMessage(), error.getMessage());
+		}
+		return error;
+	}
+
+	private static void invalid(final String json, final ValidationError.Code code, final String path) throws Exception {
+		final ValidationError error = validate(json);
+		assertNotNull(error);
+		assertEquals(code, error.getCode());
+		assertEquals(path, error.getPath());
+	}
+
+	@Test
+	public void valid() throws Exception {
+		assertNull(validate("{\"name\": \"abc\", \"numbers\": [1, 2], \"tags\": [\"a\"], " +
+				"\"children\": [{\"name\": \"de\", \"primitives\": [3]}], \"primitives\": [9], \"data\": \"AAE=\"}"));
+	}
+
+	/**
+	 * Nothing is bound, so no objects are created
+	 */
+	@Test
+	public void noObjects() throws Exception {
+		final int before = Counted.created;
+		assertNull(reader.validate("{\"name\": \"abc\", \"children\": [{\"name\": \"de\"}, {\"name\": \"fg\"}]}"));
+		assertEquals(before, Counted.created);
+	}
+
+	@Test
+	public void strings() throws Exception {
+		invalid("{\"name\": \"a\"}", ValidationError.Code.LENGTH, "$.name");
+		invalid("{\"name\": \"abcde\"}", ValidationError.Code.LENGTH, "$.name");
+		invalid("{\"name\": \"ab1\"}", ValidationError.Code.PATTERN, "$.name");
+		invalid("{\"name\": 1}", ValidationError.Code.TYPE_MISMATCH, "$.name");
+	}
+
+	@Test
+	public void collections() throws Exception {
+		invalid("{\"name\": \"abc\", \"numbers\": [1, 10]}", ValidationError.Code.RANGE, "$.numbers[1]");
+		invalid("{\"name\": \"abc\", \"primitives\": [1, 10]}", ValidationError.Code.RANGE, "$.primitives[1]");
+		invalid("{\"name\": \"abc\", \"tags\": [1]}", ValidationError.Code.TYPE_MISMATCH, "$.tags[0]");
+		invalid("{\"name\": \"abc\", \"children\": [{\"name\": \"ab\"}, {}]}",
+				ValidationError.Code.MISSING_FIELD,
+				"$.children[1]"
+		);
+	}
+
+	@Test
+	public void binary() throws Exception {
+		invalid("{\"name\": \"abc\", \"data\": \"AAEC\"}", ValidationError.Code.LENGTH, "$.data");
+		invalid("{\"name\": \"abc\", \"data\": \"A!\"}", ValidationError.Code.FORMAT, "$.data");
+	}
+
+	@Test
+	public void syntax() throws Exception {
+		invalid("{\"name\": \"abc\"", ValidationError.Code.SYNTAX, "$.name");
+		invalid("{\"name\": \"abc\", \"other\": 1}", ValidationError.Code.UNKNOWN_FIELD, "$.other");
+	}
+}
@@ -0,0 +1,201 @@
+package com.zarbosoft.checkjson;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WriterTest {
+	public static class Inner {
+		@JsonProperty
+		@Valid(max = Valid.Limit.INCLUSIVE, maxValue = 10)
+		public int x;
+	}
+
+	public static class Root {
+		@JsonProperty
+		@Valid(min = Valid.Limit.INCLUSIVE, minValue = 1, max = Valid.Limit.INCLUSIVE, maxValue = 5)
+		public String s;
+
+		@JsonProperty("long")
+		@Valid
+		public long l;
+
+		@JsonProperty
+		@Valid
+		public double d;
+
+		@JsonProperty
+		@Valid
+		public boolean b;
+
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 4)
+		public byte[] data;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Inner> inners;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Set<String> tags;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public int[] ints;
+
+		@JsonProperty
+		@Valid(optional = true, nullable = true)
+		public Inner nullable;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public Inner inner;
+	}
+
+	private static Root valid() {
+		final Root root = new Root();
+		root.s = "abc";
+		root.l = Long.MAX_VALUE;
+		root.d = 0.5;
+		root.b = true;
+		root.data = new byte[] {0, 1, (byte) 0xff};
+		final Inner inner = new Inner();
+		inner.x = 10;
+		root.inners = new ArrayList<>(Collections.singletonList(inner));
+		root.tags = new HashSet<>(Arrays.asList("a", "b"));
+		root.ints = new int[] {1, 2};
+		return root;
+	}
+
+	private static String write(final Object value) throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CheckJson.write(out, value);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static ValidationError error(final Object value) throws Exception {
+		try {
+			write(value);
+		} catch (final ValidationError e) {
+			return e;
+		}
+		throw new AssertionError("Expected a validation error");
+	}
+
+	/**
+	 * The output reads back the same on every input
+	 */
+	@Test
+	public void roundTrip() throws Exception {
+		final String json = write(valid());
+		final Root read = Inputs.read(CheckJson.reader(Root.class), json);
+		assertEquals("abc", read.s);
+		assertEquals(Long.MAX_VALUE, read.l);
+		assertEquals(0.5, read.d, 0);
+		assertTrue(read.b);
+		assertArrayEquals(new byte[] {0, 1, (byte) 0xff}, read.data);
+		assertEquals(10, read.inners.get(0).x);
+		assertEquals(new HashSet<>(Arrays.asList("a", "b")), read.tags);
+		assertArrayEquals(new int[] {1, 2}, read.ints);
+		assertNull(read.nullable);
+		assertNull(read.inner);
+	}
+
+	/**
+	 * Nullable nulls are written, optional nulls left out
+	 */
+	@Test
+	public void nulls() throws Exception {
+		final String json = write(valid());
+		assertFalse(json.contains("\"inner\""));
+		assertTrue(json.contains("\"nullable\":null"));
+		assertTrue(json.contains("\"long\":"));
+	}
+
+	@Test
+	public void generator() throws Exception {
+		final StringWriter out = new StringWriter();
+		try (final JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+			CheckJson.write(generator, valid());
+		}
+		assertEquals(write(valid()), out.toString());
+	}
+
+	@Test
+	public void errors() throws Exception {
+		Root root = valid();
+		root.s = "";
+		ValidationError error = error(root);
+		assertEquals(ValidationError.Code.LENGTH, error.getCode());
+		assertEquals("$.s", error.getPath());
+
+		root = valid();
+		root.s = null;
+		error = error(root);
+		assertEquals(ValidationError.Code.TYPE_MISMATCH, error.getCode());
+		assertEquals("$.s", error.getPath());
+
+		root = valid();
+		root.d = Double.NaN;
+		assertEquals(ValidationError.Code.FORMAT, error(root).getCode());
+
+		root = valid();
+		root.data = new byte[5];
+		error = error(root);
+		assertEquals(ValidationError.Code.LENGTH, error.getCode());
+		assertEquals("$.data", error.getPath());
+
+		root = valid();
+		final Inner over = new Inner();
+		over.x = 11;
+		root.inners.add(over);
+		error = error(root);
+		assertEquals(ValidationError.Code.RANGE, error.getCode());
+		assertEquals("$.inners[1].x", error.getPath());
+	}
+
+	/**
+	 * Errors on write match the errors reading the same document gives
+	 */
+	@Test
+	public void readParity() throws Exception {
+		final Root root = valid();
+		root.inners.get(0).x = 11;
+		final ValidationError written = error(root);
+		root.inners.get(0).x = 10;
+		final String json = write(root).replace("\"x\":10", "\"x\":11");
+		final ValidationError read = Inputs.error(CheckJson.reader(Root.class), json);
+		assertEquals(read.getCode(), written.getCode());
+		assertEquals(read.getPath(), written.getPath());
+		assertEquals(read.getMessage(), written.getMessage());
+	}
+
+	@Test
+	public void wrongRoot() throws Exception {
+		try {
+			CheckJson.write(new ByteArrayOutputStream(), new Inner(), Root.class);
+			fail();
+		} catch (final AssertionError e) {
+			assertTrue(e.getMessage().contains("is not a"));
+		}
+	}
+}
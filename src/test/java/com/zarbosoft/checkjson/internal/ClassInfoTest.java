@@ -0,0 +1,78 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.Valid;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ClassInfoTest {
+	public static class Plain {
+		@JsonProperty
+		@Valid
+		public int b;
+
+		@JsonProperty("renamed")
+		@Valid
+		public String a;
+
+		public int unannotated;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Plain> children;
+	}
+
+	public static class Duplicate {
+		@JsonProperty("x")
+		public int a;
+
+		@JsonProperty("x")
+		public int b;
+	}
+
+	@Test
+	public void cached() {
+		assertSame(ClassInfo.get(Plain.class), ClassInfo.get(Plain.class));
+	}
+
+	@Test
+	public void fields() {
+		final ClassInfo info = ClassInfo.get(Plain.class);
+		assertArrayEquals(new String[] {"b", "renamed", "children"}, info.names);
+		assertEquals(1, info.index("renamed"));
+		assertEquals(-1, info.index("a"));
+		assertEquals(-1, info.index("unannotated"));
+		assertEquals(0b11L, info.required[0]);
+	}
+
+	@Test
+	public void nested() throws Exception {
+		final Plain plain = CheckJson.read("{\"b\": 1, \"renamed\": \"x\", \"children\": [{\"b\": 2, \"renamed\": \"y\"}]}",
+				Plain.class
+		);
+		assertEquals(1, plain.b);
+		assertEquals("x", plain.a);
+		assertEquals(2, plain.children.get(0).b);
+		assertEquals("y", plain.children.get(0).a);
+	}
+
+	/**
+	 * Annotation errors surface when the reader is created rather than on the first document
+	 */
+	@Test
+	public void duplicate() {
+		try {
+			CheckJson.reader(Duplicate.class);
+			fail();
+		} catch (final IllegalStateException e) {
+			assertEquals("Duplicate key x", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.zarbosoft.checkjson.internal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.zarbosoft.checkjson.CheckJson;
+import com.zarbosoft.checkjson.Valid;
+import com.zarbosoft.checkjson.ValidationError;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class PathTest {
+	public static class Node {
+		@JsonProperty
+		@Valid(optional = true, max = Valid.Limit.INCLUSIVE, maxValue = 0)
+		public int x;
+
+		@JsonProperty
+		@Valid(optional = true)
+		public List<Node> children;
+	}
+
+	@Test
+	public void format() {
+		final Path path = new Path();
+		path.key("a");
+		path.array();
+		path.value();
+		path.value();
+		path.object();
+		path.key("b");
+		assertEquals("$.a[2].b", path.toString());
+		assertEquals("$.a[].b", path.pattern());
+		assertEquals("b", path.lastKey());
+		assertEquals(3, path.depth());
+		path.pop();
+		// The innermost object's key, outside the array
+		assertEquals("a", path.lastKey());
+		path.pop();
+		assertEquals("$.a", path.toString());
+		assertEquals(3, path.maxDepth());
+	}
+
+	@Test
+	public void position() {
+		final Path path = new Path(7);
+		path.key("a");
+		assertEquals("record 7 $.a", path.toString());
+		assertEquals("$.a", path.pattern());
+		final Path bytes = new Path("byte", 12);
+		bytes.key("a");
+		assertEquals("byte 12 $.a", bytes.copy().toString());
+		assertNull(new Path().lastKey());
+	}
+
+	/**
+	 * Copies don't change with the original
+	 */
+	@Test
+	public void copy() {
+		final Path path = new Path();
+		path.key("a");
+		final Path copy = path.copy();
+		path.key("b");
+		assertEquals("$.a", copy.toString());
+		copy.object();
+		copy.key("c");
+		assertEquals("$.a.c", copy.toString());
+		assertEquals("$.b", path.toString());
+	}
+
+	/**
+	 * Nesting deeper than the initial capacity
+	 */
+	@Test
+	public void deep() throws Exception {
+		final StringBuilder json = new StringBuilder();
+		final StringBuilder expected = new StringBuilder("$");
+		for (int i = 0; i < 20; ++i) {
+			json.append("{\"children\": [{\"x\": 0}, ");
+			expected.append(".children[1]");
+		}
+		json.append("{\"x\": 1}");
+		for (int i = 0; i < 20; ++i)
+			json.append("]}");
+		expected.append(".x");
+		try {
+			CheckJson.read(json.toString(), Node.class);
+			fail();
+		} catch (final ValidationError e) {
+			assertEquals(expected.toString(), e.getPath());
+			assertEquals("x", e.getField());
+			assertEquals(expected.toString().replace("[1]", "[]"), e.getPathPattern());
+		}
+	}
+}